@@ -0,0 +1,27 @@
+package ru.anikeev.tickets.benchmarks;
+
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import ru.anikeev.tickets.TicketsApplication;
+
+/**
+ * Запуск контекста приложения для бенчмарков с настройками профиля test.
+ */
+public final class BenchmarkContext {
+
+    private BenchmarkContext() {
+    }
+
+    /**
+     * @return запущенный контекст приложения
+     */
+    public static ConfigurableApplicationContext start() {
+        return new SpringApplicationBuilder(TicketsApplication.class)
+                .profiles("test")
+                .web(WebApplicationType.NONE)
+                .logStartupInfo(false)
+                .properties("spring.main.banner-mode=off", "logging.level.root=WARN")
+                .run();
+    }
+}
@@ -0,0 +1,68 @@
+package ru.anikeev.tickets.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.context.ConfigurableApplicationContext;
+import ru.anikeev.tickets.entities.Ticket;
+import ru.anikeev.tickets.repositories.JsonReader;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Бенчмарки чтения файла tickets.json: полный список, потоковое и параллельное чтение.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.AverageTime, Mode.Throughput})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class JsonReaderBenchmark {
+    @Param({"10000", "1000000", "10000000"})
+    private int rows;
+
+    private ConfigurableApplicationContext context;
+    private JsonReader jsonReader;
+    private String path;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        path = TicketFileGenerator.ticketsFile(rows).toString();
+        context = BenchmarkContext.start();
+        jsonReader = context.getBean(JsonReader.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<Ticket> readJsonByPath() {
+        return jsonReader.readJsonByPath(path);
+    }
+
+    @Benchmark
+    public void readJsonByPathStreaming(Blackhole blackhole) {
+        jsonReader.readJsonByPath(path, blackhole::consume);
+    }
+
+    @Benchmark
+    public List<Ticket> readJsonByPathParallel() {
+        return jsonReader.readJsonByPathParallel(path);
+    }
+}
@@ -0,0 +1,87 @@
+package ru.anikeev.tickets.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Время от запуска CLI в отдельном процессе до выведенного результата анализа небольшого файла.
+ * Режимы:
+ * - default - обычный jar, все бины создаются при запуске;
+ * - lazy - обычный jar с ленивой инициализацией бинов профиля cli;
+ * - fast - распакованный jar с AOT-обработанным контекстом, ленивыми бинами и архивом AppCDS.
+ * Перед запуском нужно собрать приложение с профилем fast-start:
+ * mvn -Pjmh,fast-start -DskipTests verify -Djmh.args="StartupBenchmark -p rows=1000"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 10)
+@Fork(1)
+public class StartupBenchmark {
+    private static final Path JAR = Path.of("target", "tickets-0.0.1-SNAPSHOT.jar");
+    private static final Path APPLICATION_DIRECTORY = Path.of("target", "application");
+    private static final Path EXTRACTED_JAR = APPLICATION_DIRECTORY.resolve("tickets-0.0.1-SNAPSHOT.jar");
+    private static final Path CDS_ARCHIVE = APPLICATION_DIRECTORY.resolve("tickets.jsa");
+
+    @Param({"1000"})
+    private int rows;
+
+    @Param({"default", "lazy", "fast"})
+    private String mode;
+
+    private List<String> command;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        String path = TicketFileGenerator.ticketsFile(rows).toString();
+        String java = Path.of(System.getProperty("java.home"), "bin", "java").toString();
+        command = new ArrayList<>();
+        command.add(java);
+        switch (mode) {
+            case "default" -> command.addAll(List.of("-jar", require(JAR).toString(), path,
+                    "--spring.main.lazy-initialization=false"));
+            case "lazy" -> command.addAll(List.of("-jar", require(JAR).toString(), path));
+            case "fast" -> command.addAll(List.of("-XX:SharedArchiveFile=" + require(CDS_ARCHIVE),
+                    "-Dspring.aot.enabled=true", "-jar", require(EXTRACTED_JAR).toString(), path));
+            default -> throw new IllegalArgumentException("Неизвестный режим запуска: " + mode);
+        }
+    }
+
+    @Benchmark
+    public int timeToFirstResult() throws IOException, InterruptedException {
+        Process process = new ProcessBuilder(command)
+                .redirectErrorStream(true)
+                .redirectOutput(ProcessBuilder.Redirect.DISCARD)
+                .start();
+        int exitCode = process.waitFor();
+        if (exitCode != 0) {
+            throw new IllegalStateException("Процесс анализа завершился с кодом " + exitCode);
+        }
+        return exitCode;
+    }
+
+    private static Path require(Path file) {
+        if (!Files.isRegularFile(file)) {
+            throw new IllegalStateException("Не найден файл " + file + ", соберите проект с профилем fast-start");
+        }
+        return file;
+    }
+}
@@ -0,0 +1,125 @@
+package ru.anikeev.tickets.benchmarks;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import ru.anikeev.tickets.entities.Ticket;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Генератор синтетических билетов для бенчмарков.
+ * Около пятой части билетов относится к маршруту VVO-TLV, остальные распределены
+ * по другим маршрутам. Данные детерминированы и зависят только от количества билетов.
+ */
+public final class TicketFileGenerator {
+    private static final String[] ORIGINS = {"VVO", "LED", "UFA", "SVO", "KZN"};
+    private static final String[] DESTINATIONS = {"TLV", "LED", "UFA", "AER", "KGD"};
+    private static final String[] CARRIERS = {"SU", "TK", "S7", "BA", "LH", "UT"};
+    private static final Path DATA_DIRECTORY = Path.of("target", "jmh-data");
+
+    private TicketFileGenerator() {
+    }
+
+    /**
+     * Возвращает путь к файлу tickets.json с заданным количеством билетов, создавая его при отсутствии
+     *
+     * @param rows количество билетов
+     * @return путь к сгенерированному файлу
+     * @throws IOException при ошибках записи файла
+     */
+    public static Path ticketsFile(int rows) throws IOException {
+        Path file = DATA_DIRECTORY.resolve("tickets-" + rows + ".json");
+        if (Files.isRegularFile(file) && Files.size(file) > 0) {
+            return file;
+        }
+        Files.createDirectories(DATA_DIRECTORY);
+        Path temporary = Files.createTempFile(DATA_DIRECTORY, "tickets-" + rows, ".tmp");
+        try (OutputStream output = Files.newOutputStream(temporary)) {
+            writeTickets(output, rows);
+        }
+        return Files.move(temporary, file);
+    }
+
+    /**
+     * Записывает JSON-документ с билетами в поток
+     *
+     * @param output поток для записи
+     * @param rows количество билетов
+     * @throws IOException при ошибках записи
+     */
+    public static void writeTickets(OutputStream output, int rows) throws IOException {
+        Random random = new Random(rows);
+        try (JsonGenerator generator = new JsonFactory().createGenerator(output, JsonEncoding.UTF8)) {
+            generator.writeStartObject();
+            generator.writeArrayFieldStart("tickets");
+            for (int i = 0; i < rows; i++) {
+                Ticket ticket = randomTicket(random);
+                generator.writeStartObject();
+                generator.writeStringField("origin", ticket.getOrigin());
+                generator.writeStringField("origin_name", ticket.getOrigin() + " International");
+                generator.writeStringField("destination", ticket.getDestination());
+                generator.writeStringField("destination_name", ticket.getDestination() + " Airport");
+                generator.writeStringField("departure_date", ticket.getDepartureDate());
+                generator.writeStringField("departure_time", ticket.getDepartureTime());
+                generator.writeStringField("arrival_date", ticket.getArrivalDate());
+                generator.writeStringField("arrival_time", ticket.getArrivalTime());
+                generator.writeStringField("carrier", ticket.getCarrier());
+                generator.writeNumberField("stops", ticket.getStops());
+                generator.writeNumberField("price", ticket.getPrice());
+                generator.writeEndObject();
+            }
+            generator.writeEndArray();
+            generator.writeEndObject();
+        }
+    }
+
+    /**
+     * Создает список билетов в памяти
+     *
+     * @param rows количество билетов
+     * @return список билетов
+     */
+    public static List<Ticket> tickets(int rows) {
+        Random random = new Random(rows);
+        List<Ticket> tickets = new ArrayList<>(rows);
+        for (int i = 0; i < rows; i++) {
+            tickets.add(randomTicket(random));
+        }
+        return tickets;
+    }
+
+    private static Ticket randomTicket(Random random) {
+        Ticket ticket = new Ticket();
+        boolean mainRoute = random.nextInt(5) == 0;
+        ticket.setOrigin(mainRoute ? "VVO" : ORIGINS[random.nextInt(ORIGINS.length)]);
+        ticket.setDestination(mainRoute ? "TLV" : DESTINATIONS[random.nextInt(DESTINATIONS.length)]);
+        ticket.setCarrier(CARRIERS[random.nextInt(CARRIERS.length)]);
+
+        int day = 1 + random.nextInt(28);
+        int departureMinute = random.nextInt(24 * 60);
+        int arrivalMinute = departureMinute + 60 + random.nextInt(20 * 60);
+        ticket.setDepartureDate(date(day));
+        ticket.setDepartureTime(time(departureMinute));
+        ticket.setArrivalDate(date(day + arrivalMinute / (24 * 60)));
+        ticket.setArrivalTime(time(arrivalMinute % (24 * 60)));
+        ticket.setStops(random.nextInt(3));
+        ticket.setPrice(BigDecimal.valueOf(5_000 + random.nextInt(60_000)));
+        return ticket;
+    }
+
+    private static String date(int day) {
+        return String.format("%02d.05.18", day);
+    }
+
+    private static String time(int minuteOfDay) {
+        return (minuteOfDay / 60) + ":" + String.format("%02d", minuteOfDay % 60);
+    }
+}
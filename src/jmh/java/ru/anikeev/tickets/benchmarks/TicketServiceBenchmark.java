@@ -0,0 +1,93 @@
+package ru.anikeev.tickets.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import ru.anikeev.tickets.dto.TicketDTO;
+import ru.anikeev.tickets.entities.Ticket;
+import ru.anikeev.tickets.services.TicketServiceInternal;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Бенчмарки расчетов TicketServiceImpl на билетах в памяти и сквозного анализа файла.
+ * Сквозной анализ вызывается напрямую у TicketServiceInternal, минуя кэш результатов.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.AverageTime, Mode.Throughput})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class TicketServiceBenchmark {
+    @Param({"10000", "1000000", "10000000"})
+    private int rows;
+
+    private ConfigurableApplicationContext context;
+    private TicketServiceInternal ticketService;
+    private List<Ticket> tickets;
+    private List<Ticket> routeTickets;
+    private List<BigDecimal> prices;
+    private String path;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        path = TicketFileGenerator.ticketsFile(rows).toString();
+        context = BenchmarkContext.start();
+        ticketService = context.getBean(TicketServiceInternal.class);
+        tickets = TicketFileGenerator.tickets(rows);
+        routeTickets = ticketService.filterOriginToDestination(tickets);
+        prices = routeTickets.stream().map(Ticket::getPrice).toList();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<Ticket> filterOriginToDestination() {
+        return ticketService.filterOriginToDestination(tickets);
+    }
+
+    @Benchmark
+    public BigDecimal calculateAverage() {
+        return ticketService.calculateAverage(prices);
+    }
+
+    @Benchmark
+    public BigDecimal calculateMediana() {
+        return ticketService.calculateMediana(prices);
+    }
+
+    @Benchmark
+    public Map<String, Duration> findMinTimeOfFlightBetweenOriginAndDistin() {
+        return ticketService.findMinTimeOfFlightBetweenOriginAndDistin(routeTickets);
+    }
+
+    @Benchmark
+    public TicketDTO analyseTickets() {
+        return ticketService.analyseTickets(tickets);
+    }
+
+    @Benchmark
+    public TicketDTO resultOfAnalys() {
+        return ticketService.resultOfAnalys(path);
+    }
+}
@@ -0,0 +1,75 @@
+package ru.anikeev.tickets.repositories.imp;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import ru.anikeev.tickets.benchmarks.TicketFileGenerator;
+import ru.anikeev.tickets.entities.Ticket;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Сравнение разбора билетов через ObjectMapper.readValue и через TicketDecoder.
+ * Документ хранится в памяти, чтобы измерялся только разбор без чтения с диска.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 3)
+@Measurement(iterations = 5, time = 3)
+@Fork(1)
+public class TicketDecoderBenchmark {
+    @Param({"100000"})
+    private int tickets;
+
+    private final ObjectMapper mapper = new ObjectMapper();
+    private byte[] document;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        TicketFileGenerator.writeTickets(output, tickets);
+        document = output.toByteArray();
+    }
+
+    @Benchmark
+    public void databind(Blackhole blackhole) throws IOException {
+        try (JsonParser parser = openTicketsArray()) {
+            while (parser.nextToken() == JsonToken.START_OBJECT) {
+                blackhole.consume(mapper.readValue(parser, Ticket.class));
+            }
+        }
+    }
+
+    @Benchmark
+    public void ticketDecoder(Blackhole blackhole) throws IOException {
+        try (JsonParser parser = openTicketsArray()) {
+            while (parser.nextToken() == JsonToken.START_OBJECT) {
+                blackhole.consume(TicketDecoder.decode(parser));
+            }
+        }
+    }
+
+    private JsonParser openTicketsArray() throws IOException {
+        JsonParser parser = mapper.getFactory().createParser(document);
+        parser.nextToken();
+        parser.nextToken();
+        parser.nextToken();
+        return parser;
+    }
+}
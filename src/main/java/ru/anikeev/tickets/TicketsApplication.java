@@ -5,14 +5,11 @@ import org.springframework.boot.CommandLineRunner;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.context.annotation.Bean;
-import org.springframework.context.annotation.ComponentScan;
 import org.springframework.context.annotation.Profile;
-import org.springframework.stereotype.Repository;
 import ru.anikeev.tickets.dto.TicketDTO;
-import ru.anikeev.tickets.repositories.JsonReader;
-import ru.anikeev.tickets.repositories.imp.JsonReaderImpl;
 import ru.anikeev.tickets.services.TicketService;
 
+import java.util.Arrays;
 import java.util.Scanner;
 
 @SpringBootApplication
@@ -23,14 +20,24 @@ public class TicketsApplication {
         SpringApplication.run(TicketsApplication.class, args);
     }
 
+    /**
+     * Однократный анализ файла в профиле prod.
+     * В профиле server, который включает настройки prod, вместо него работает сервер запросов.
+     * Путь к файлу берется из первого аргумента командной строки, не являющегося параметром Spring
+     * (запуск из планировщика без ввода), иначе запрашивается в консоли.
+     */
     @Bean
-    @Profile("prod")
+    @Profile("prod & !server")
     public CommandLineRunner run(TicketService ticketService) {
         return args -> {
-
-            Scanner scanner = new Scanner(System.in);
-            System.out.println("Введите путь к файлу tickets.json ");
-            String path = scanner.nextLine();
+            String path = Arrays.stream(args)
+                    .filter(arg -> !arg.startsWith("--"))
+                    .findFirst()
+                    .orElseGet(() -> {
+                        Scanner scanner = new Scanner(System.in);
+                        System.out.println("Введите путь к файлу tickets.json ");
+                        return scanner.nextLine();
+                    });
 
             TicketDTO result = ticketService.resultOfAnalys(path);
             result.printResults();
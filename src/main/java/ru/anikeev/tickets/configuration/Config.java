@@ -1,16 +1,29 @@
 package ru.anikeev.tickets.configuration;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import java.time.format.DateTimeFormatter;
 import java.time.format.DateTimeFormatterBuilder;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 /**
  * Конфигурационный класс для настройки бинов, используемых в приложении.
- * Содержит определения бинов для работы с JSON и форматирования даты/времени.
+ * Содержит определения бинов для работы с JSON, форматирования даты/времени
+ * и пулов потоков для параллельной обработки билетов и асинхронного анализа.
  */
 @Configuration
+@Slf4j
 public class Config {
 
     /**
@@ -25,6 +38,17 @@ public class Config {
         return new ObjectMapper();
     }
 
+    /**
+     * Создает и возвращает реестр метрик чтения и анализа билетов.
+     * Значения хранятся в памяти и доступны через TicketMetrics.
+     *
+     * @return реестр метрик
+     */
+    @Bean
+    public MeterRegistry meterRegistry() {
+        return new SimpleMeterRegistry();
+    }
+
     /**
      * Создает и возвращает бин DateTimeFormatter для форматирования времени.
      * Формат времени берется из properties-файла (параметр time.format).
@@ -40,19 +64,51 @@ public class Config {
     }
 
     /**
-     * Создает и возвращает бин DateTimeFormatter для форматирования даты и времени.
-     * Форматы даты и времени берутся из properties-файла (параметры date.format и time.format).
+     * Создает и возвращает выделенный ForkJoinPool для параллельного разбора и анализа билетов.
+     * Уровень параллелизма берется из properties-файла (параметр tickets.parallelism),
+     * значение 0 или меньше означает количество доступных процессоров.
      *
-     * @param dateFormat строка формата даты (например, "dd.MM.yy")
-     * @param timeFormat строка формата времени (например, "HH:mm")
-     * @return DateTimeFormatter для комбинированного форматирования даты и времени
+     * @param parallelism уровень параллелизма пула
+     * @return ForkJoinPool для обработки билетов
      */
-    @Bean(name = "dateTimeFormatter")
-    public DateTimeFormatter dateTimeFormater(@Value("${date.format}") String dateFormat,
-                                              @Value("${time.format}") String timeFormat){
-        return new DateTimeFormatterBuilder()
-                .appendPattern(dateFormat+" "+timeFormat)
-                .toFormatter();
+    @Bean(name = "ticketsForkJoinPool", destroyMethod = "shutdown")
+    public ForkJoinPool ticketsForkJoinPool(@Value("${tickets.parallelism:0}") int parallelism) {
+        return new ForkJoinPool(parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Создает и возвращает исполнитель асинхронных запросов анализа билетов.
+     * По умолчанию это пул из analysis.threads потоков (0 - количество доступных процессоров)
+     * с очередью на analysis.max.in.flight задач. При analysis.virtual.threads=true
+     * и запуске на JDK 21+ каждая задача выполняется в виртуальном потоке.
+     * Количество одновременно принятых запросов в обоих случаях ограничивает сервис.
+     *
+     * @param threads количество потоков пула
+     * @param maxInFlight максимальное количество запросов в работе
+     * @param virtualThreads использовать виртуальные потоки, если JDK их поддерживает
+     * @return ExecutorService для асинхронного анализа
+     */
+    @Bean(name = "ticketsAnalysisExecutor", destroyMethod = "shutdown")
+    public ExecutorService ticketsAnalysisExecutor(@Value("${analysis.threads:0}") int threads,
+                                                   @Value("${analysis.max.in.flight:64}") int maxInFlight,
+                                                   @Value("${analysis.virtual.threads:false}") boolean virtualThreads) {
+        if (virtualThreads) {
+            try {
+                return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+            } catch (ReflectiveOperationException e) {
+                log.warn("Виртуальные потоки недоступны в JDK {}, используется пул потоков",
+                        Runtime.version().feature());
+            }
+        }
+        int poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        AtomicInteger threadNumber = new AtomicInteger();
+        ThreadFactory threadFactory = runnable -> {
+            Thread thread = new Thread(runnable, "tickets-analysis-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+        return new ThreadPoolExecutor(poolSize, poolSize, 0L, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(Math.max(1, maxInFlight)), threadFactory);
     }
 
 }
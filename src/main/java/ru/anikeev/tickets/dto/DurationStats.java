@@ -0,0 +1,20 @@
+package ru.anikeev.tickets.dto;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.time.Duration;
+
+/**
+ * Статистика времени полета одной авиакомпании
+ */
+@Data
+@Builder
+public class DurationStats {
+    private long count;
+    private Duration min;
+    private Duration max;
+    private Duration mean;
+    private Duration p50;
+    private Duration p95;
+}
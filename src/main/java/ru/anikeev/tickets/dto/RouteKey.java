@@ -0,0 +1,16 @@
+package ru.anikeev.tickets.dto;
+
+/**
+ * Маршрут между аэропортами отправления и назначения.
+ * Используется как ключ результатов пакетного анализа по нескольким маршрутам.
+ *
+ * @param origin код аэропорта отправления
+ * @param destination код аэропорта назначения
+ */
+public record RouteKey(String origin, String destination) {
+
+    @Override
+    public String toString() {
+        return origin + "->" + destination;
+    }
+}
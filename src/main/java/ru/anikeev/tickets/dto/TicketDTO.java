@@ -12,6 +12,7 @@ import java.util.Map;
 public class TicketDTO {
     private BigDecimal differenceBetweenAverageAndMedianPrice;
     private Map<String, Duration> mapMinTimeBetweenOriginDist;
+    private Map<String, DurationStats> mapDurationStatsByCarrier;
 
     public void printResults() {
         System.out.println("\nРезультаты анализа билетов");
@@ -23,6 +24,14 @@ public class TicketDTO {
             long minutes = duration.toMinutesPart();
             System.out.printf("- %s: %d ч %d мин\n", carrier, hours, minutes);
         });
+
+        if (mapDurationStatsByCarrier != null) {
+            System.out.println("\nВремя полета по авиакомпаниям (мин):");
+            mapDurationStatsByCarrier.forEach((carrier, stats) ->
+                    System.out.printf("- %s: билетов %d, мин %d, макс %d, среднее %d, p50 %d, p95 %d\n",
+                            carrier, stats.getCount(), stats.getMin().toMinutes(), stats.getMax().toMinutes(),
+                            stats.getMean().toMinutes(), stats.getP50().toMinutes(), stats.getP95().toMinutes()));
+        }
     }
 
     }
@@ -0,0 +1,58 @@
+package ru.anikeev.tickets.entities;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Словарь кодов аэропортов и авиакомпаний.
+ * Каждому коду сопоставляется компактный целочисленный идентификатор,
+ * который хранится в колонках таблицы билетов вместо строки.
+ */
+public class CodeDictionary {
+    private final Map<String, Integer> ids = new HashMap<>();
+    private final List<String> codes = new ArrayList<>();
+
+    /**
+     * Возвращает идентификатор кода, добавляя код в словарь при первом обращении
+     *
+     * @param code код аэропорта или авиакомпании
+     * @return идентификатор кода
+     */
+    public int idOf(String code) {
+        Integer id = ids.get(code);
+        if (id == null) {
+            id = codes.size();
+            ids.put(code, id);
+            codes.add(code);
+        }
+        return id;
+    }
+
+    /**
+     * Ищет идентификатор кода, не изменяя словарь
+     *
+     * @param code код аэропорта или авиакомпании
+     * @return идентификатор кода или -1, если код отсутствует
+     */
+    public int find(String code) {
+        Integer id = ids.get(code);
+        return id == null ? -1 : id;
+    }
+
+    /**
+     * @param id идентификатор кода
+     * @return код аэропорта или авиакомпании
+     */
+    public String codeOf(int id) {
+        return codes.get(id);
+    }
+
+    /**
+     * @return количество кодов в словаре
+     */
+    public int size() {
+        return codes.size();
+    }
+}
@@ -0,0 +1,97 @@
+package ru.anikeev.tickets.entities;
+
+import java.util.Arrays;
+
+/**
+ * Колоночная таблица билетов на параллельных примитивных массивах.
+ * Один билет занимает 36 байт без заголовков объектов и ссылок,
+ * поэтому в памяти помещается значительно больше билетов, чем в List&lt;Ticket&gt;.
+ */
+public final class ColumnarTicketTable implements TicketTable {
+    private static final int INITIAL_CAPACITY = 1024;
+
+    private final CodeDictionary dictionary;
+    private int size;
+    private int[] originIds = new int[INITIAL_CAPACITY];
+    private int[] destinationIds = new int[INITIAL_CAPACITY];
+    private int[] carrierIds = new int[INITIAL_CAPACITY];
+    private long[] departureMinutes = new long[INITIAL_CAPACITY];
+    private long[] arrivalMinutes = new long[INITIAL_CAPACITY];
+    private long[] priceCents = new long[INITIAL_CAPACITY];
+
+    public ColumnarTicketTable() {
+        this(new CodeDictionary());
+    }
+
+    public ColumnarTicketTable(CodeDictionary dictionary) {
+        this.dictionary = dictionary;
+    }
+
+    /**
+     * Добавляет билет в конец таблицы
+     *
+     * @param ticket компактный билет
+     */
+    public void add(CompactTicket ticket) {
+        if (size == priceCents.length) {
+            grow();
+        }
+        originIds[size] = dictionary.idOf(ticket.origin());
+        destinationIds[size] = dictionary.idOf(ticket.destination());
+        carrierIds[size] = dictionary.idOf(ticket.carrier());
+        departureMinutes[size] = ticket.departureMinutes();
+        arrivalMinutes[size] = ticket.arrivalMinutes();
+        priceCents[size] = ticket.priceCents();
+        size++;
+    }
+
+    private void grow() {
+        int capacity = priceCents.length + (priceCents.length >> 1);
+        originIds = Arrays.copyOf(originIds, capacity);
+        destinationIds = Arrays.copyOf(destinationIds, capacity);
+        carrierIds = Arrays.copyOf(carrierIds, capacity);
+        departureMinutes = Arrays.copyOf(departureMinutes, capacity);
+        arrivalMinutes = Arrays.copyOf(arrivalMinutes, capacity);
+        priceCents = Arrays.copyOf(priceCents, capacity);
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public CodeDictionary dictionary() {
+        return dictionary;
+    }
+
+    @Override
+    public int originId(int row) {
+        return originIds[row];
+    }
+
+    @Override
+    public int destinationId(int row) {
+        return destinationIds[row];
+    }
+
+    @Override
+    public int carrierId(int row) {
+        return carrierIds[row];
+    }
+
+    @Override
+    public long departureMinutes(int row) {
+        return departureMinutes[row];
+    }
+
+    @Override
+    public long arrivalMinutes(int row) {
+        return arrivalMinutes[row];
+    }
+
+    @Override
+    public long priceCents(int row) {
+        return priceCents[row];
+    }
+}
@@ -0,0 +1,29 @@
+package ru.anikeev.tickets.entities;
+
+/**
+ * Компактное представление авиабилета для анализа.
+ * Даты и время хранятся в минутах от начала эпохи, цена - в копейках,
+ * коды аэропортов и авиакомпаний интернированы и разделяются всеми билетами.
+ * Создается один раз при чтении файла, поэтому при анализе даты повторно не разбираются.
+ *
+ * @param origin код аэропорта отправления
+ * @param destination код аэропорта назначения
+ * @param carrier код авиакомпании
+ * @param departureMinutes дата и время вылета в минутах от начала эпохи
+ * @param arrivalMinutes дата и время прилета в минутах от начала эпохи
+ * @param priceCents стоимость билета в копейках
+ */
+public record CompactTicket(String origin,
+                            String destination,
+                            String carrier,
+                            long departureMinutes,
+                            long arrivalMinutes,
+                            long priceCents) {
+
+    /**
+     * @return продолжительность полета в минутах
+     */
+    public long durationMinutes() {
+        return arrivalMinutes - departureMinutes;
+    }
+}
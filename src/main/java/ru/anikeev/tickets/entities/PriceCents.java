@@ -0,0 +1,88 @@
+package ru.anikeev.tickets.entities;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Преобразования цены билета между BigDecimal и целым числом копеек.
+ * Цены билетов содержат не более двух знаков после запятой,
+ * поэтому представление в копейках точное.
+ */
+public final class PriceCents {
+    /**
+     * Количество знаков после запятой в цене
+     */
+    public static final int SCALE = 2;
+    /**
+     * Признак цены, не представимой в копейках, возвращаемый toCentsOrNotRepresentable
+     */
+    public static final long NOT_REPRESENTABLE = Long.MIN_VALUE;
+    /**
+     * Максимальное количество цифр цены, при котором значение в копейках гарантированно помещается в long
+     */
+    private static final int MAX_FAST_PRECISION = 16;
+
+    private PriceCents() {
+    }
+
+    /**
+     * Переводит цену в копейки
+     *
+     * @param price цена билета
+     * @return цена в копейках
+     * @throws ArithmeticException если цена содержит больше двух знаков после запятой
+     *                             или не помещается в long
+     */
+    public static long toCents(BigDecimal price) {
+        return price.setScale(SCALE, RoundingMode.UNNECESSARY).unscaledValue().longValueExact();
+    }
+
+    /**
+     * Переводит цену в копейки без исключений.
+     * Цены без дробной части или с одним-двумя знаками после запятой переводятся
+     * без промежуточного округления, для целых цен - без создания объектов.
+     *
+     * @param price цена билета
+     * @return цена в копейках или NOT_REPRESENTABLE, если цену нельзя точно выразить в копейках
+     */
+    public static long toCentsOrNotRepresentable(BigDecimal price) {
+        int scale = price.scale();
+        if (scale >= 0 && scale <= SCALE && price.precision() <= MAX_FAST_PRECISION) {
+            long unscaled = scale == 0 ? price.longValue() : price.unscaledValue().longValue();
+            return scale == SCALE ? unscaled : unscaled * (scale == 0 ? 100 : 10);
+        }
+        try {
+            return toCents(price);
+        } catch (ArithmeticException e) {
+            return NOT_REPRESENTABLE;
+        }
+    }
+
+    /**
+     * Делит целое число с округлением HALF_UP, как BigDecimal.divide с RoundingMode.HALF_UP
+     *
+     * @param dividend делимое
+     * @param divisor делитель
+     * @return частное, округленное до ближайшего целого, половина - от нуля
+     * @throws ArithmeticException при делении на ноль
+     */
+    public static long divideHalfUp(long dividend, long divisor) {
+        long quotient = dividend / divisor;
+        long remainder = Math.abs(dividend % divisor);
+        long absDivisor = Math.abs(divisor);
+        if (remainder >= absDivisor - remainder) {
+            quotient += (dividend < 0) == (divisor < 0) ? 1 : -1;
+        }
+        return quotient;
+    }
+
+    /**
+     * Переводит копейки в цену с двумя знаками после запятой
+     *
+     * @param cents цена в копейках
+     * @return цена билета
+     */
+    public static BigDecimal toPrice(long cents) {
+        return BigDecimal.valueOf(cents, SCALE);
+    }
+}
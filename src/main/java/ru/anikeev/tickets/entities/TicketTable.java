@@ -0,0 +1,55 @@
+package ru.anikeev.tickets.entities;
+
+/**
+ * Таблица билетов в колоночном представлении.
+ * Строка таблицы соответствует одному билету, значения хранятся по колонкам
+ * в примитивном виде: коды - идентификаторами словаря, даты и время - минутами
+ * от начала эпохи, цены - копейками.
+ */
+public interface TicketTable {
+    /**
+     * @return количество билетов в таблице
+     */
+    int size();
+
+    /**
+     * @return словарь кодов аэропортов и авиакомпаний таблицы
+     */
+    CodeDictionary dictionary();
+
+    /**
+     * @param row номер строки
+     * @return идентификатор аэропорта отправления
+     */
+    int originId(int row);
+
+    /**
+     * @param row номер строки
+     * @return идентификатор аэропорта назначения
+     */
+    int destinationId(int row);
+
+    /**
+     * @param row номер строки
+     * @return идентификатор авиакомпании
+     */
+    int carrierId(int row);
+
+    /**
+     * @param row номер строки
+     * @return дата и время вылета в минутах от начала эпохи
+     */
+    long departureMinutes(int row);
+
+    /**
+     * @param row номер строки
+     * @return дата и время прилета в минутах от начала эпохи
+     */
+    long arrivalMinutes(int row);
+
+    /**
+     * @param row номер строки
+     * @return стоимость билета в копейках
+     */
+    long priceCents(int row);
+}
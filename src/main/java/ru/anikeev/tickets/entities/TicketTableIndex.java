@@ -0,0 +1,400 @@
+package ru.anikeev.tickets.entities;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.function.IntConsumer;
+import java.util.function.LongConsumer;
+
+/**
+ * Вторичные индексы маршрутов и авиакомпаний над таблицей билетов, которая хранится в памяти
+ * между запросами. Для каждого маршрута (пары идентификаторов аэропортов) и каждой авиакомпании
+ * хранится список номеров строк в общем массиве int[] со смещениями (формат CSR), поэтому поиск
+ * занимает время, пропорциональное размеру результата, а не количеству билетов в таблице.
+ * Номера строк в каждом списке упорядочены по возрастанию.
+ * Индекс строится параллельно по участкам таблицы: сначала каждый участок считает свои билеты
+ * по ключам, затем по префиксным суммам определяются позиции участков в списках,
+ * и участки заполняют списки одновременно без синхронизации.
+ * Для запросов по окну вылета у каждого маршрута есть второй список тех же строк,
+ * упорядоченный по времени вылета, и рядом с ним массив времен вылета в минутах от начала эпохи:
+ * границы окна находятся двоичным поиском без разбора строк дат.
+ */
+public final class TicketTableIndex {
+    private static final int MIN_CHUNK_ROWS = 1 << 16;
+    private static final int CHUNKS_PER_THREAD = 4;
+    private static final int[] EMPTY = new int[0];
+
+    private final TicketTable table;
+    private final LongIntMap routeIds;
+    private final int[] routeOffsets;
+    private final int[] routeRows;
+    private final int[] carrierOffsets;
+    private final int[] carrierRows;
+    private final int[] departureRows;
+    private final long[] departures;
+
+    private TicketTableIndex(TicketTable table, LongIntMap routeIds, int[] routeOffsets, int[] routeRows,
+                             int[] carrierOffsets, int[] carrierRows, int[] departureRows, long[] departures) {
+        this.table = table;
+        this.routeIds = routeIds;
+        this.routeOffsets = routeOffsets;
+        this.routeRows = routeRows;
+        this.carrierOffsets = carrierOffsets;
+        this.carrierRows = carrierRows;
+        this.departureRows = departureRows;
+        this.departures = departures;
+    }
+
+    /**
+     * Строит индексы маршрутов и авиакомпаний таблицы на заданном пуле потоков
+     *
+     * @param table таблица билетов
+     * @param pool пул потоков для параллельного построения
+     * @return индекс таблицы
+     */
+    public static TicketTableIndex build(TicketTable table, ForkJoinPool pool) {
+        int size = table.size();
+        int codes = table.dictionary().size();
+        int chunkCount = (int) Math.max(1, Math.min((long) pool.getParallelism() * CHUNKS_PER_THREAD,
+                ((long) size + MIN_CHUNK_ROWS - 1) / MIN_CHUNK_ROWS));
+        int[] bounds = new int[chunkCount + 1];
+        for (int chunk = 0; chunk <= chunkCount; chunk++) {
+            bounds[chunk] = (int) ((long) size * chunk / chunkCount);
+        }
+
+        // подсчет билетов участков по маршрутам и авиакомпаниям
+        LongIntMap[] chunkRouteCounts = new LongIntMap[chunkCount];
+        int[][] chunkCarrierPositions = new int[chunkCount][];
+        runChunks(pool, chunkCount, chunk -> {
+            LongIntMap routeCounts = new LongIntMap();
+            int[] carrierCounts = new int[codes];
+            for (int row = bounds[chunk]; row < bounds[chunk + 1]; row++) {
+                routeCounts.increment(routeKey(table.originId(row), table.destinationId(row)));
+                carrierCounts[table.carrierId(row)]++;
+            }
+            chunkRouteCounts[chunk] = routeCounts;
+            chunkCarrierPositions[chunk] = carrierCounts;
+        });
+
+        LongIntMap routeIds = new LongIntMap();
+        for (LongIntMap routeCounts : chunkRouteCounts) {
+            routeCounts.forEachKey(key -> {
+                if (routeIds.get(key) < 0) {
+                    routeIds.put(key, routeIds.size());
+                }
+            });
+        }
+        int[][] chunkRoutePositions = new int[chunkCount][routeIds.size()];
+        for (int chunk = 0; chunk < chunkCount; chunk++) {
+            int[] positions = chunkRoutePositions[chunk];
+            LongIntMap routeCounts = chunkRouteCounts[chunk];
+            routeCounts.forEachKey(key -> positions[routeIds.get(key)] = routeCounts.get(key));
+        }
+        int[] routeOffsets = toPositions(chunkRoutePositions, routeIds.size());
+        int[] carrierOffsets = toPositions(chunkCarrierPositions, codes);
+
+        // заполнение списков строк, каждый участок пишет в свои позиции
+        int[] routeRows = new int[size];
+        int[] carrierRows = new int[size];
+        runChunks(pool, chunkCount, chunk -> {
+            int[] routePositions = chunkRoutePositions[chunk];
+            int[] carrierPositions = chunkCarrierPositions[chunk];
+            for (int row = bounds[chunk]; row < bounds[chunk + 1]; row++) {
+                routeRows[routePositions[routeIds.get(routeKey(table.originId(row), table.destinationId(row)))]++] = row;
+                carrierRows[carrierPositions[table.carrierId(row)]++] = row;
+            }
+        });
+
+        // списки маршрутов, упорядоченные по времени вылета
+        int[] departureRows = routeRows.clone();
+        long[] departures = new long[size];
+        int routes = routeIds.size();
+        runChunks(pool, chunkCount, chunk -> {
+            for (int routeId = chunk; routeId < routes; routeId += chunkCount) {
+                sortByDeparture(table, departureRows, departures, routeOffsets[routeId], routeOffsets[routeId + 1]);
+            }
+        });
+        return new TicketTableIndex(table, routeIds, routeOffsets, routeRows, carrierOffsets, carrierRows,
+                departureRows, departures);
+    }
+
+    /**
+     * @return таблица билетов индекса
+     */
+    public TicketTable table() {
+        return table;
+    }
+
+    /**
+     * @return количество различных маршрутов в таблице
+     */
+    public int routeCount() {
+        return routeIds.size();
+    }
+
+    /**
+     * Находит строки билетов маршрута
+     *
+     * @param origin код аэропорта отправления
+     * @param destination код аэропорта назначения
+     * @return номера строк по возрастанию или пустой массив
+     */
+    public int[] routeRows(String origin, String destination) {
+        int originId = table.dictionary().find(origin);
+        int destinationId = table.dictionary().find(destination);
+        if (originId < 0 || destinationId < 0) {
+            return EMPTY;
+        }
+        int routeId = routeIds.get(routeKey(originId, destinationId));
+        return routeId < 0 ? EMPTY : Arrays.copyOfRange(routeRows, routeOffsets[routeId], routeOffsets[routeId + 1]);
+    }
+
+    /**
+     * Находит строки билетов авиакомпании
+     *
+     * @param carrier код авиакомпании
+     * @return номера строк по возрастанию или пустой массив
+     */
+    public int[] carrierRows(String carrier) {
+        int carrierId = table.dictionary().find(carrier);
+        if (carrierId < 0 || carrierId + 1 >= carrierOffsets.length) {
+            return EMPTY;
+        }
+        return Arrays.copyOfRange(carrierRows, carrierOffsets[carrierId], carrierOffsets[carrierId + 1]);
+    }
+
+    /**
+     * Находит строки билетов авиакомпании на маршруте пересечением упорядоченных списков
+     *
+     * @param origin код аэропорта отправления
+     * @param destination код аэропорта назначения
+     * @param carrier код авиакомпании
+     * @return номера строк по возрастанию или пустой массив
+     */
+    public int[] routeCarrierRows(String origin, String destination, String carrier) {
+        int[] route = routeRows(origin, destination);
+        int[] byCarrier = carrierRows(carrier);
+        int[] result = new int[Math.min(route.length, byCarrier.length)];
+        int count = 0;
+        for (int i = 0, j = 0; i < route.length && j < byCarrier.length; ) {
+            if (route[i] < byCarrier[j]) {
+                i++;
+            } else if (route[i] > byCarrier[j]) {
+                j++;
+            } else {
+                result[count++] = route[i];
+                i++;
+                j++;
+            }
+        }
+        return Arrays.copyOf(result, count);
+    }
+
+    /**
+     * Находит строки билетов маршрута с вылетом в заданном окне
+     *
+     * @param origin код аэропорта отправления
+     * @param destination код аэропорта назначения
+     * @param fromMinutes начало окна в минутах от начала эпохи, включительно
+     * @param toMinutes конец окна в минутах от начала эпохи, не включительно
+     * @return номера строк в порядке времени вылета или пустой массив
+     */
+    public int[] routeRowsDepartingBetween(String origin, String destination, long fromMinutes, long toMinutes) {
+        int originId = table.dictionary().find(origin);
+        int destinationId = table.dictionary().find(destination);
+        if (originId < 0 || destinationId < 0 || fromMinutes >= toMinutes) {
+            return EMPTY;
+        }
+        int routeId = routeIds.get(routeKey(originId, destinationId));
+        if (routeId < 0) {
+            return EMPTY;
+        }
+        int start = lowerBound(routeOffsets[routeId], routeOffsets[routeId + 1], fromMinutes);
+        int end = lowerBound(start, routeOffsets[routeId + 1], toMinutes);
+        return Arrays.copyOfRange(departureRows, start, end);
+    }
+
+    /**
+     * @return первая позиция в [from, to), время вылета в которой не меньше minutes, или to
+     */
+    private int lowerBound(int from, int to, long minutes) {
+        int low = from;
+        int high = to;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (departures[middle] < minutes) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Упорядочивает участок списка строк по времени вылета и заполняет массив времен вылета.
+     * Смещение времени от минимума участка и номер строки упаковываются в один long,
+     * поэтому сортируется примитивный массив, а при равном времени сохраняется порядок строк.
+     */
+    private static void sortByDeparture(TicketTable table, int[] rows, long[] departures, int from, int to) {
+        if (from == to) {
+            return;
+        }
+        long minDeparture = Long.MAX_VALUE;
+        long maxDeparture = Long.MIN_VALUE;
+        for (int i = from; i < to; i++) {
+            long departure = table.departureMinutes(rows[i]);
+            minDeparture = Math.min(minDeparture, departure);
+            maxDeparture = Math.max(maxDeparture, departure);
+        }
+        if (maxDeparture - minDeparture >= 0 && maxDeparture - minDeparture < 1L << 32) {
+            long[] packed = new long[to - from];
+            for (int i = from; i < to; i++) {
+                packed[i - from] = (table.departureMinutes(rows[i]) - minDeparture) << 31 | rows[i];
+            }
+            Arrays.sort(packed);
+            for (int i = from; i < to; i++) {
+                rows[i] = (int) (packed[i - from] & Integer.MAX_VALUE);
+            }
+        } else {
+            // разброс времени не помещается в упаковку: сортировка со сравнением по колонке таблицы
+            Integer[] boxed = new Integer[to - from];
+            for (int i = from; i < to; i++) {
+                boxed[i - from] = rows[i];
+            }
+            Arrays.sort(boxed, Comparator.comparingLong(table::departureMinutes));
+            for (int i = from; i < to; i++) {
+                rows[i] = boxed[i - from];
+            }
+        }
+        for (int i = from; i < to; i++) {
+            departures[i] = table.departureMinutes(rows[i]);
+        }
+    }
+
+    private static long routeKey(int originId, int destinationId) {
+        return (long) originId << 32 | (destinationId & 0xFFFFFFFFL);
+    }
+
+    /**
+     * Переводит количества участков по ключам в позиции записи участков и возвращает смещения списков
+     *
+     * @param chunkCounts количества билетов участков по ключам, заменяются позициями записи
+     * @param keys количество ключей
+     * @return смещения списков ключей, размер keys + 1
+     */
+    private static int[] toPositions(int[][] chunkCounts, int keys) {
+        int[] offsets = new int[keys + 1];
+        int position = 0;
+        for (int key = 0; key < keys; key++) {
+            offsets[key] = position;
+            for (int[] counts : chunkCounts) {
+                int count = counts[key];
+                counts[key] = position;
+                position += count;
+            }
+        }
+        offsets[keys] = position;
+        return offsets;
+    }
+
+    private static void runChunks(ForkJoinPool pool, int chunkCount, IntConsumer task) {
+        List<ForkJoinTask<?>> tasks = new ArrayList<>(chunkCount);
+        for (int chunk = 0; chunk < chunkCount; chunk++) {
+            int current = chunk;
+            tasks.add(pool.submit(() -> task.accept(current)));
+        }
+        tasks.forEach(ForkJoinTask::join);
+    }
+
+    /**
+     * Хеш-таблица с открытой адресацией из long в неотрицательный int без упаковки ключей.
+     * После построения индекса только читается, поэтому безопасна для чтения из нескольких потоков.
+     */
+    private static final class LongIntMap {
+        private long[] keys = new long[16];
+        private int[] values = filled(16);
+        private int size;
+
+        private int get(long key) {
+            int mask = keys.length - 1;
+            for (int slot = slot(key, mask); ; slot = (slot + 1) & mask) {
+                if (values[slot] < 0) {
+                    return -1;
+                }
+                if (keys[slot] == key) {
+                    return values[slot];
+                }
+            }
+        }
+
+        private void put(long key, int value) {
+            if (size * 2 >= keys.length) {
+                resize();
+            }
+            int mask = keys.length - 1;
+            int slot = slot(key, mask);
+            while (values[slot] >= 0 && keys[slot] != key) {
+                slot = (slot + 1) & mask;
+            }
+            if (values[slot] < 0) {
+                size++;
+            }
+            keys[slot] = key;
+            values[slot] = value;
+        }
+
+        private void increment(long key) {
+            int mask = keys.length - 1;
+            for (int slot = slot(key, mask); ; slot = (slot + 1) & mask) {
+                if (values[slot] < 0) {
+                    put(key, 1);
+                    return;
+                }
+                if (keys[slot] == key) {
+                    values[slot]++;
+                    return;
+                }
+            }
+        }
+
+        private int size() {
+            return size;
+        }
+
+        private void forEachKey(LongConsumer consumer) {
+            for (int slot = 0; slot < keys.length; slot++) {
+                if (values[slot] >= 0) {
+                    consumer.accept(keys[slot]);
+                }
+            }
+        }
+
+        private void resize() {
+            long[] oldKeys = keys;
+            int[] oldValues = values;
+            keys = new long[oldKeys.length * 2];
+            values = filled(oldKeys.length * 2);
+            size = 0;
+            for (int slot = 0; slot < oldKeys.length; slot++) {
+                if (oldValues[slot] >= 0) {
+                    put(oldKeys[slot], oldValues[slot]);
+                }
+            }
+        }
+
+        private static int slot(long key, int mask) {
+            long hash = key * 0x9E3779B97F4A7C15L;
+            return (int) (hash ^ hash >>> 32) & mask;
+        }
+
+        private static int[] filled(int capacity) {
+            int[] values = new int[capacity];
+            Arrays.fill(values, -1);
+            return values;
+        }
+    }
+}
@@ -0,0 +1,204 @@
+package ru.anikeev.tickets.metrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Measurement;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.BaseUnits;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import ru.anikeev.tickets.repositories.RejectReason;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * Метрики чтения и анализа билетов в MeterRegistry.
+ * Таймер tickets.stage с тегом stage измеряет каждую стадию обработки,
+ * счетчики учитывают прочитанные, отклоненные (с тегом reason), пропущенные фильтром маршрута
+ * при чтении, подходящие под маршрут билеты и прочитанные байты. Метры создаются один раз
+ * при запуске, поэтому на горячем пути нет поиска в реестре. Если задан параметр
+ * metrics.dump.file, при остановке приложения значения всех метров записываются в этот файл.
+ */
+@Component
+@Slf4j
+public class TicketMetrics {
+    /**
+     * Стадия обработки билетов
+     */
+    public enum Stage {
+        OPEN("open"),
+        PARSE("parse"),
+        VALIDATION("validation"),
+        FILTER("filter"),
+        AVERAGE("average"),
+        MEDIAN("median"),
+        MIN_DURATION("min_duration");
+
+        private final String tag;
+
+        Stage(String tag) {
+            this.tag = tag;
+        }
+    }
+
+    private final MeterRegistry registry;
+    private final String dumpFile;
+    private final EnumMap<Stage, Timer> timers = new EnumMap<>(Stage.class);
+    private final EnumMap<RejectReason, Counter> rejected = new EnumMap<>(RejectReason.class);
+    private final Counter ticketsRead;
+    private final Counter ticketsSkipped;
+    private final Counter ticketsMatched;
+    private final Counter bytesRead;
+
+    public TicketMetrics(MeterRegistry registry, @Value("${metrics.dump.file:}") String dumpFile) {
+        this.registry = registry;
+        this.dumpFile = dumpFile;
+        for (Stage stage : Stage.values()) {
+            timers.put(stage, Timer.builder("tickets.stage")
+                    .description("Время стадии чтения и анализа билетов")
+                    .tag("stage", stage.tag)
+                    .register(registry));
+        }
+        for (RejectReason reason : RejectReason.values()) {
+            rejected.put(reason, Counter.builder("tickets.rejected")
+                    .description("Отклоненные при чтении билеты")
+                    .tag("reason", reason.name().toLowerCase())
+                    .register(registry));
+        }
+        this.ticketsRead = Counter.builder("tickets.read")
+                .description("Разобранные билеты, включая отклоненные")
+                .register(registry);
+        this.ticketsSkipped = Counter.builder("tickets.skipped")
+                .description("Билеты другого маршрута, пропущенные при чтении без декодирования")
+                .register(registry);
+        this.ticketsMatched = Counter.builder("tickets.matched")
+                .description("Билеты, прошедшие фильтр маршрута")
+                .register(registry);
+        this.bytesRead = Counter.builder("tickets.bytes.read")
+                .baseUnit(BaseUnits.BYTES)
+                .description("Прочитанные байты файлов с билетами")
+                .register(registry);
+    }
+
+    /**
+     * Измеряет время стадии
+     *
+     * @param stage стадия обработки
+     * @param supplier расчет стадии
+     * @param <T> тип результата
+     * @return результат расчета
+     */
+    public <T> T time(Stage stage, Supplier<T> supplier) {
+        return timers.get(stage).record(supplier);
+    }
+
+    /**
+     * Учитывает уже измеренное время стадии
+     *
+     * @param stage стадия обработки
+     * @param nanos длительность в наносекундах
+     */
+    public void record(Stage stage, long nanos) {
+        timers.get(stage).record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * @param count количество разобранных билетов
+     */
+    public void countRead(long count) {
+        ticketsRead.increment(count);
+    }
+
+    /**
+     * @param counts количество отклоненных билетов по причинам
+     */
+    public void countRejected(Map<RejectReason, Long> counts) {
+        counts.forEach((reason, count) -> {
+            if (count > 0) {
+                rejected.get(reason).increment(count);
+            }
+        });
+    }
+
+    /**
+     * @param count количество билетов, пропущенных фильтром маршрута при чтении
+     */
+    public void countSkipped(long count) {
+        ticketsSkipped.increment(count);
+    }
+
+    /**
+     * @param count количество билетов, прошедших фильтр маршрута
+     */
+    public void countMatched(long count) {
+        ticketsMatched.increment(count);
+    }
+
+    /**
+     * @param bytes количество прочитанных байт
+     */
+    public void countBytes(long bytes) {
+        bytesRead.increment(bytes);
+    }
+
+    /**
+     * Формирует текстовый отчет по всем метрам реестра, по одной строке на метр
+     *
+     * @return отчет в формате "имя{теги} статистика=значение ..."
+     */
+    public String report() {
+        return registry.getMeters().stream()
+                .sorted(Comparator.comparing((Meter meter) -> meter.getId().getName())
+                        .thenComparing(meter -> meter.getId().getTags().toString()))
+                .map(TicketMetrics::formatMeter)
+                .collect(Collectors.joining(System.lineSeparator(), "", System.lineSeparator()));
+    }
+
+    /**
+     * Записывает отчет по метрам в файл
+     *
+     * @param file путь к файлу
+     * @throws IOException при ошибках записи
+     */
+    public void writeTo(Path file) throws IOException {
+        Files.writeString(file, report());
+    }
+
+    /**
+     * Записывает отчет в файл metrics.dump.file при остановке приложения
+     */
+    @PreDestroy
+    public void dump() {
+        if (dumpFile == null || dumpFile.isBlank()) {
+            return;
+        }
+        try {
+            writeTo(Path.of(dumpFile));
+        } catch (IOException e) {
+            log.error("Ошибка при записи метрик в файл: {}", dumpFile);
+        }
+    }
+
+    private static String formatMeter(Meter meter) {
+        StringBuilder line = new StringBuilder(meter.getId().getName());
+        line.append(meter.getId().getTags().stream()
+                .map(tag -> tag.getKey() + "=" + tag.getValue())
+                .collect(Collectors.joining(",", "{", "}")));
+        for (Measurement measurement : meter.measure()) {
+            line.append(' ').append(measurement.getStatistic().getTagValueRepresentation())
+                    .append('=').append(measurement.getValue());
+        }
+        return line.toString();
+    }
+}
@@ -1,8 +1,11 @@
 package ru.anikeev.tickets.repositories;
 
 
+import ru.anikeev.tickets.entities.CompactTicket;
 import ru.anikeev.tickets.entities.Ticket;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
 /**
  * Интерфейс для чтения JSON-файлов с билетами.
  * Определяет контракт для реализации парсеров JSON-данных.
@@ -15,4 +18,83 @@ public interface JsonReader {
      * @return список объектов Ticket или пустой список при ошибках
      */
     List<Ticket> readJsonByPath(String path);
+
+    /**
+     * Читает JSON-файл по указанному пути и передает каждый валидный билет обработчику,
+     * не накапливая билеты в памяти
+     *
+     * @param path путь к JSON-файлу с билетами
+     * @param consumer обработчик валидных билетов
+     * @return true если файл прочитан до конца без ошибок чтения и структуры;
+     *         false, если файл не найден, обрезан или не содержит массива билетов
+     */
+    boolean readJsonByPath(String path, Consumer<Ticket> consumer);
+
+    /**
+     * Читает JSON-файл по указанному пути и передает обработчику валидные билеты
+     * только заданного маршрута. Билеты других маршрутов пропускаются по кодам аэропортов
+     * без полного разбора и валидации.
+     *
+     * @param path путь к JSON-файлу с билетами
+     * @param origin код аэропорта отправления
+     * @param destination код аэропорта назначения
+     * @param consumer обработчик валидных билетов маршрута
+     */
+    void readRouteByPath(String path, String origin, String destination, Consumer<Ticket> consumer);
+
+    /**
+     * Читает JSON-файл по указанному пути, разбирая массив билетов
+     * параллельно по участкам, и возвращает список билетов в порядке следования в файле
+     *
+     * @param path путь к JSON-файлу с билетами
+     * @return список объектов Ticket или пустой список при ошибках
+     */
+    List<Ticket> readJsonByPathParallel(String path);
+
+    /**
+     * Читает JSON-файл по указанному пути и возвращает билеты в компактном представлении
+     *
+     * @param path путь к JSON-файлу с билетами
+     * @return список компактных билетов или пустой список при ошибках
+     */
+    List<CompactTicket> readCompactByPath(String path);
+
+    /**
+     * Читает JSON-файл по указанному пути и передает каждый валидный билет
+     * в компактном представлении обработчику
+     *
+     * @param path путь к JSON-файлу с билетами
+     * @param consumer обработчик компактных билетов
+     * @return true если файл прочитан до конца без ошибок чтения и структуры
+     */
+    boolean readCompactByPath(String path, Consumer<CompactTicket> consumer);
+
+    /**
+     * Читает JSON-файл по указанному пути и передает обработчику в компактном представлении
+     * валидные билеты только заданного маршрута. Билеты других маршрутов пропускаются
+     * по кодам аэропортов без полного разбора и валидации.
+     *
+     * @param path путь к JSON-файлу с билетами
+     * @param origin код аэропорта отправления
+     * @param destination код аэропорта назначения
+     * @param consumer обработчик компактных билетов маршрута
+     */
+    void readCompactRouteByPath(String path, String origin, String destination, Consumer<CompactTicket> consumer);
+
+    /**
+     * Возвращает количество билетов, отклоненных при всех чтениях с момента запуска
+     *
+     * @return карта где ключ - причина отклонения, значение - количество билетов
+     */
+    Map<RejectReason, Long> getRejectCounts();
+
+    /**
+     * Находит JSON-файлы с билетами по указанному расположению:
+     * пути к файлу, каталогу (файлы *.json, *.jsonl, *.ndjson каталога, в том числе сжатые .gz)
+     * или шаблону имени файла в формате glob, например "data/tickets-*.json"
+     *
+     * @param location путь к файлу, каталогу или шаблон
+     * @return пути к найденным файлам в порядке имен или пустой список
+     */
+    List<String> resolveJsonFiles(String location);
 }
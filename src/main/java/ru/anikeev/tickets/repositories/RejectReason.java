@@ -0,0 +1,56 @@
+package ru.anikeev.tickets.repositories;
+
+/**
+ * Причина отклонения билета при чтении JSON-файла
+ */
+public enum RejectReason {
+    /**
+     * Элемент массива билетов не удалось разобрать
+     */
+    MALFORMED("некорректная структура билета"),
+    /**
+     * Вместо билета указан null
+     */
+    NULL_TICKET("null-билет"),
+    /**
+     * Не указан аэропорт отправления или назначения
+     */
+    MISSING_ROUTE("пустые origin/destination"),
+    /**
+     * Не указаны дата или время вылета или прилета
+     */
+    MISSING_DATE_TIME("пустые даты/время"),
+    /**
+     * Цена не указана или не положительна
+     */
+    INVALID_PRICE("некорректная цена"),
+    /**
+     * Дата вылета не соответствует формату date.format
+     */
+    INVALID_DEPARTURE_DATE("некорректная дата отправления"),
+    /**
+     * Дата прилета не соответствует формату date.format
+     */
+    INVALID_ARRIVAL_DATE("некорректная дата прибытия"),
+    /**
+     * Время вылета не соответствует формату time.format
+     */
+    INVALID_DEPARTURE_TIME("некорректное время отправления"),
+    /**
+     * Время прилета не соответствует формату time.format
+     */
+    INVALID_ARRIVAL_TIME("некорректное время прибытия");
+
+    private final String description;
+
+    RejectReason(String description) {
+        this.description = description;
+    }
+
+    /**
+     * @return описание причины для журнала
+     */
+    public String getDescription() {
+        return description;
+    }
+}
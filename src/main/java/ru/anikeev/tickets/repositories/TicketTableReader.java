@@ -0,0 +1,37 @@
+package ru.anikeev.tickets.repositories;
+
+import ru.anikeev.tickets.entities.TicketTable;
+import ru.anikeev.tickets.entities.TicketTableIndex;
+
+/**
+ * Интерфейс для загрузки билетов в колоночную таблицу.
+ * Используется вместо JsonReader, когда билеты нужно держать в памяти для многократного анализа.
+ */
+public interface TicketTableReader {
+    /**
+     * Читает JSON-файл по указанному пути и возвращает таблицу билетов
+     *
+     * @param path путь к JSON-файлу с билетами
+     * @return таблица билетов или пустая таблица при ошибках
+     */
+    TicketTable readTableByPath(String path);
+
+    /**
+     * Возвращает таблицу билетов из бинарного снимка рядом с JSON-файлом (путь + ".tkts"),
+     * если снимок соответствует текущей версии файла. Иначе читает JSON-файл
+     * и сохраняет снимок для следующих запусков.
+     *
+     * @param path путь к JSON-файлу с билетами
+     * @return таблица билетов или пустая таблица при ошибках
+     */
+    TicketTable readTableWithSnapshot(String path);
+
+    /**
+     * Загружает таблицу билетов так же, как readTableWithSnapshot, и строит по ней
+     * индексы маршрутов и авиакомпаний для многократных запросов к таблице в памяти
+     *
+     * @param path путь к JSON-файлу с билетами
+     * @return индекс таблицы билетов
+     */
+    TicketTableIndex readIndexedTable(String path);
+}
@@ -0,0 +1,56 @@
+package ru.anikeev.tickets.repositories.imp;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import ru.anikeev.tickets.entities.CompactTicket;
+import ru.anikeev.tickets.entities.PriceCents;
+import ru.anikeev.tickets.entities.Ticket;
+
+/**
+ * Преобразует провалидированный билет в компактное представление CompactTicket.
+ * Даты и время переводятся в минуты от начала эпохи через общий DateTimeCache,
+ * цена переводится в копейки, коды аэропортов и авиакомпаний интернируются.
+ */
+@Component
+@Slf4j
+public class CompactTicketConverter {
+    private final DateTimeCache dateTimeCache;
+
+    public CompactTicketConverter(DateTimeCache dateTimeCache) {
+        this.dateTimeCache = dateTimeCache;
+    }
+
+    /**
+     * Преобразует билет в компактное представление
+     *
+     * @param ticket провалидированный билет
+     * @return компактный билет или null, если цену нельзя точно выразить в копейках
+     */
+    public CompactTicket convert(Ticket ticket) {
+        long priceCents;
+        try {
+            priceCents = PriceCents.toCents(ticket.getPrice());
+        } catch (ArithmeticException e) {
+            log.warn("Цена билета не представима в копейках: {}", ticket.getPrice());
+            return null;
+        }
+        return new CompactTicket(
+                ticket.getOrigin().intern(),
+                ticket.getDestination().intern(),
+                ticket.getCarrier() == null ? null : ticket.getCarrier().intern(),
+                toEpochMinutes(ticket.getDepartureDate(), ticket.getDepartureTime()),
+                toEpochMinutes(ticket.getArrivalDate(), ticket.getArrivalTime()),
+                priceCents);
+    }
+
+    /**
+     * Переводит строковые дату и время в минуты от начала эпохи
+     *
+     * @param date строка с датой
+     * @param time строка с временем
+     * @return количество минут от 01.01.1970 00:00
+     */
+    public long toEpochMinutes(String date, String time) {
+        return Math.floorDiv(dateTimeCache.epochSecond(date, time), 60);
+    }
+}
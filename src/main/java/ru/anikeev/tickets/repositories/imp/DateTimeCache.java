@@ -0,0 +1,137 @@
+package ru.anikeev.tickets.repositories.imp;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.time.temporal.TemporalAccessor;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Потокобезопасный кэш разобранных строк даты и времени билетов.
+ * Дата переводится в номер дня от начала эпохи, время - в секунды от начала суток,
+ * поэтому каждая различная строка разбирается форматтером не больше одного раза,
+ * а повторные обращения обходятся поиском в ConcurrentHashMap. Кэш общий для валидации
+ * при чтении, компактного представления и расчета продолжительности полета.
+ * Размер каждого кэша ограничен параметром datetime.cache.max.size: после заполнения
+ * новые строки разбираются без сохранения. Невалидные строки тоже кэшируются,
+ * а перед разбором форматтером проверяются посимвольно, чтобы не создавать исключения.
+ * Время 24:00, допустимое в режиме SMART, соответствует 86400 секундам - полуночи следующего дня.
+ */
+@Component
+public class DateTimeCache {
+    /**
+     * Признак невалидной даты
+     */
+    public static final long INVALID_DATE = Long.MIN_VALUE;
+    /**
+     * Признак невалидного времени
+     */
+    public static final int INVALID_TIME = -1;
+    private static final int SECONDS_PER_DAY = 24 * 60 * 60;
+
+    private final DateTimeFormatter dateFormatter;
+    private final DateTimeFormatter timeFormatter;
+    private final DateTimePatternMatcher dateMatcher;
+    private final DateTimePatternMatcher timeMatcher;
+    private final int maxSize;
+    private final ConcurrentMap<String, Long> epochDays = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, Integer> secondsOfDay = new ConcurrentHashMap<>();
+
+    public DateTimeCache(@Value("${date.format}") String dateFormat,
+                         @Value("${time.format}") String timeFormat,
+                         @Qualifier("timeFormatter") DateTimeFormatter timeFormatter,
+                         @Value("${datetime.cache.max.size:4096}") int maxSize) {
+        this.dateFormatter = DateTimeFormatter.ofPattern(dateFormat);
+        this.timeFormatter = timeFormatter;
+        this.dateMatcher = DateTimePatternMatcher.compileDate(dateFormat);
+        this.timeMatcher = DateTimePatternMatcher.compileTime(timeFormat);
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * Переводит строку даты в номер дня от начала эпохи
+     *
+     * @param date строка с датой в формате date.format
+     * @return номер дня от 01.01.1970 или INVALID_DATE, если дату нельзя разобрать
+     */
+    public long epochDay(String date) {
+        Long cached = epochDays.get(date);
+        if (cached != null) {
+            return cached;
+        }
+        long epochDay = parseEpochDay(date);
+        if (epochDays.size() < maxSize) {
+            epochDays.putIfAbsent(date, epochDay);
+        }
+        return epochDay;
+    }
+
+    /**
+     * Переводит строку времени в секунды от начала суток
+     *
+     * @param time строка со временем в формате time.format
+     * @return секунды от начала суток (86400 для 24:00) или INVALID_TIME, если время нельзя разобрать
+     */
+    public int secondOfDay(String time) {
+        Integer cached = secondsOfDay.get(time);
+        if (cached != null) {
+            return cached;
+        }
+        int secondOfDay = parseSecondOfDay(time);
+        if (secondsOfDay.size() < maxSize) {
+            secondsOfDay.putIfAbsent(time, secondOfDay);
+        }
+        return secondOfDay;
+    }
+
+    /**
+     * Переводит строковые дату и время в секунды от начала эпохи
+     *
+     * @param date строка с датой
+     * @param time строка со временем
+     * @return количество секунд от 01.01.1970 00:00
+     * @throws DateTimeParseException если дату или время нельзя разобрать
+     */
+    public long epochSecond(String date, String time) {
+        long epochDay = epochDay(date);
+        if (epochDay == INVALID_DATE) {
+            throw new DateTimeParseException("Некорректная дата: " + date, date, 0);
+        }
+        int secondOfDay = secondOfDay(time);
+        if (secondOfDay == INVALID_TIME) {
+            throw new DateTimeParseException("Некорректное время: " + time, time, 0);
+        }
+        return epochDay * SECONDS_PER_DAY + secondOfDay;
+    }
+
+    private long parseEpochDay(String date) {
+        if (dateMatcher != null && dateMatcher.match(date) == DateTimePatternMatcher.Result.INVALID) {
+            return INVALID_DATE;
+        }
+        try {
+            return LocalDate.parse(date, dateFormatter).toEpochDay();
+        } catch (DateTimeParseException e) {
+            return INVALID_DATE;
+        }
+    }
+
+    private int parseSecondOfDay(String time) {
+        if (timeMatcher != null && timeMatcher.match(time) == DateTimePatternMatcher.Result.INVALID) {
+            return INVALID_TIME;
+        }
+        try {
+            TemporalAccessor parsed = timeFormatter.parse(time);
+            int excessDays = parsed.query(DateTimeFormatter.parsedExcessDays()).getDays();
+            return LocalTime.from(parsed).toSecondOfDay() + excessDays * SECONDS_PER_DAY;
+        } catch (DateTimeException e) {
+            return INVALID_TIME;
+        }
+    }
+}
@@ -0,0 +1,225 @@
+package ru.anikeev.tickets.repositories.imp;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Предварительно скомпилированная проверка строки даты или времени по шаблону DateTimeFormatter.
+ * Шаблон разбирается один раз на литералы и числовые поля, после чего строка проверяется
+ * посимвольно без создания объектов и без исключений. Поддерживаются поля d, dd, M, MM, yy, yyyy
+ * для даты и H, HH, m, mm, s, ss для времени, разделенные литералами, с теми же правилами
+ * ширины и допустимых значений, что и у DateTimeFormatter в режиме SMART.
+ * Для остальных шаблонов compileDate/compileTime возвращают null, а для строк со знаком
+ * перед числом match возвращает UNKNOWN - в этих случаях проверку выполняет сам форматтер.
+ */
+final class DateTimePatternMatcher {
+    /**
+     * Результат проверки строки
+     */
+    enum Result {
+        VALID,
+        INVALID,
+        UNKNOWN
+    }
+
+    private static final int DAY = 0;
+    private static final int MONTH = 1;
+    private static final int YEAR = 2;
+    private static final int HOUR = 3;
+    private static final int MINUTE = 4;
+    private static final int SECOND = 5;
+    private static final int FIELD_COUNT = 6;
+    private static final int LITERAL = -1;
+    /**
+     * Максимальная ширина числового поля из одной буквы шаблона, как у DateTimeFormatter
+     */
+    private static final int MAX_VARIABLE_WIDTH = 19;
+    private static final long VALUE_LIMIT = 1_000_000_000L;
+
+    private final int[] kinds;
+    private final int[] minWidths;
+    private final int[] maxWidths;
+    private final char[] literals;
+    private final boolean date;
+    private final int yearWidth;
+
+    private DateTimePatternMatcher(List<int[]> elements, boolean date) {
+        this.date = date;
+        int size = elements.size();
+        this.kinds = new int[size];
+        this.minWidths = new int[size];
+        this.maxWidths = new int[size];
+        this.literals = new char[size];
+        int width = 0;
+        for (int i = 0; i < size; i++) {
+            int[] element = elements.get(i);
+            kinds[i] = element[0];
+            minWidths[i] = element[1];
+            maxWidths[i] = element[2];
+            literals[i] = (char) element[3];
+            if (element[0] == YEAR) {
+                width = element[2];
+            }
+        }
+        this.yearWidth = width;
+    }
+
+    /**
+     * Компилирует шаблон даты
+     *
+     * @param pattern шаблон в формате DateTimeFormatter, например "dd.MM.yy"
+     * @return проверка шаблона или null, если шаблон не поддерживается
+     */
+    static DateTimePatternMatcher compileDate(String pattern) {
+        return compile(pattern, new boolean[]{true, true, true, false, false, false},
+                new boolean[]{true, true, true, false, false, false});
+    }
+
+    /**
+     * Компилирует шаблон времени
+     *
+     * @param pattern шаблон в формате DateTimeFormatter, например "H:mm"
+     * @return проверка шаблона или null, если шаблон не поддерживается
+     */
+    static DateTimePatternMatcher compileTime(String pattern) {
+        return compile(pattern, new boolean[]{false, false, false, true, true, true},
+                new boolean[]{false, false, false, true, true, false});
+    }
+
+    /**
+     * Проверяет строку на соответствие шаблону и диапазонам значений полей
+     *
+     * @param text проверяемая строка
+     * @return VALID или INVALID, либо UNKNOWN если строку должен проверить форматтер
+     */
+    Result match(String text) {
+        long day = 0;
+        long month = 0;
+        long year = 0;
+        long hour = 0;
+        long minute = 0;
+        long second = 0;
+        int position = 0;
+        int length = text.length();
+        for (int i = 0; i < kinds.length; i++) {
+            if (kinds[i] == LITERAL) {
+                if (position >= length || text.charAt(position) != literals[i]) {
+                    return Result.INVALID;
+                }
+                position++;
+                continue;
+            }
+            if (position < length && (text.charAt(position) == '+' || text.charAt(position) == '-')) {
+                return Result.UNKNOWN;
+            }
+            long value = 0;
+            int start = position;
+            int end = Math.min(length, position + maxWidths[i]);
+            while (position < end) {
+                int digit = text.charAt(position) - '0';
+                if (digit < 0 || digit > 9) {
+                    break;
+                }
+                value = value < VALUE_LIMIT ? value * 10 + digit : value;
+                position++;
+            }
+            if (position - start < minWidths[i]) {
+                return Result.INVALID;
+            }
+            switch (kinds[i]) {
+                case DAY -> day = value;
+                case MONTH -> month = value;
+                case YEAR -> year = value;
+                case HOUR -> hour = value;
+                case MINUTE -> minute = value;
+                default -> second = value;
+            }
+        }
+        if (position != length) {
+            return Result.INVALID;
+        }
+
+        boolean valid;
+        if (date) {
+            // в режиме SMART день сверяется только с диапазоном 1-31, 31.02 приводится к концу месяца
+            valid = day >= 1 && day <= 31 && month >= 1 && month <= 12 && (yearWidth == 2 || year >= 1);
+        } else {
+            // в режиме SMART время 24:00 допускается и означает полночь следующего дня
+            valid = minute <= 59 && second <= 59
+                    && (hour <= 23 || hour == 24 && minute == 0 && second == 0);
+        }
+        return valid ? Result.VALID : Result.INVALID;
+    }
+
+    private static DateTimePatternMatcher compile(String pattern, boolean[] allowed, boolean[] required) {
+        List<int[]> elements = new ArrayList<>();
+        boolean[] seen = new boolean[FIELD_COUNT];
+        int position = 0;
+        while (position < pattern.length()) {
+            char letter = pattern.charAt(position);
+            int count = 1;
+            while (position + count < pattern.length() && pattern.charAt(position + count) == letter) {
+                count++;
+            }
+            if (isReserved(letter)) {
+                return null;
+            }
+            if (!Character.isLetter(letter)) {
+                for (int i = 0; i < count; i++) {
+                    elements.add(new int[]{LITERAL, 0, 0, letter});
+                }
+                position += count;
+                continue;
+            }
+
+            int kind = kindOf(letter);
+            if (kind < 0 || !allowed[kind] || seen[kind]) {
+                return null;
+            }
+            int[] widths = widthsOf(kind, count);
+            if (widths == null) {
+                return null;
+            }
+            if (!elements.isEmpty() && elements.get(elements.size() - 1)[0] != LITERAL) {
+                // соседние числовые поля разбираются форматтером с резервированием ширины
+                return null;
+            }
+            seen[kind] = true;
+            elements.add(new int[]{kind, widths[0], widths[1], 0});
+            position += count;
+        }
+        for (int kind = 0; kind < FIELD_COUNT; kind++) {
+            if (required[kind] && !seen[kind]) {
+                return null;
+            }
+        }
+        return new DateTimePatternMatcher(elements, allowed[DAY]);
+    }
+
+    private static boolean isReserved(char symbol) {
+        return symbol == '\'' || symbol == '[' || symbol == ']' || symbol == '{' || symbol == '}' || symbol == '#';
+    }
+
+    private static int kindOf(char letter) {
+        return switch (letter) {
+            case 'd' -> DAY;
+            case 'M' -> MONTH;
+            case 'y' -> YEAR;
+            case 'H' -> HOUR;
+            case 'm' -> MINUTE;
+            case 's' -> SECOND;
+            default -> -1;
+        };
+    }
+
+    private static int[] widthsOf(int kind, int count) {
+        if (kind == YEAR) {
+            return count == 2 || count == 4 ? new int[]{count, count} : null;
+        }
+        return switch (count) {
+            case 1 -> new int[]{1, MAX_VARIABLE_WIDTH};
+            case 2 -> new int[]{2, 2};
+            default -> null;
+        };
+    }
+}
@@ -9,44 +9,94 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Repository;
+import ru.anikeev.tickets.entities.CompactTicket;
 import ru.anikeev.tickets.entities.Ticket;
+import ru.anikeev.tickets.metrics.TicketMetrics;
 import ru.anikeev.tickets.repositories.JsonReader;
+import ru.anikeev.tickets.repositories.RejectReason;
 
+import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.IOException;
-import java.math.BigDecimal;
-import java.time.LocalDate;
-import java.time.LocalTime;
-import java.time.format.DateTimeFormatter;
-import java.time.format.DateTimeParseException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.function.Consumer;
 /**
  * Реализация интерфейса JsonReader для чтения и парсинга JSON-файлов с билетами.
  * Класс выполняет:
  * - Загрузку данных из JSON-файла
  * - Валидацию структуры файла и данных билетов
  * - Преобразование JSON в объекты Ticket
+ * - Параллельный разбор больших файлов по участкам на выделенном ForkJoinPool
+ * - Поиск файлов с билетами по каталогу или шаблону имени
+ * - Чтение билетов одного маршрута с пропуском остальных по кодам аэропортов
+ * - Чтение файлов в формате JSON Lines и сжатых gzip, формат определяется по содержимому.
+ *   Сжатые файлы распаковываются потоково, без временного файла, в отдельном потоке
+ *   параллельно с разбором. Несжатые файлы JSON Lines разбираются параллельно
+ *   по участкам из целых строк.
+ * Отклоненные билеты не пишутся в журнал по одному: они учитываются в счетчиках
+ * по причинам, и по каждому файлу в журнал выводится одна сводка.
+ * Время открытия файла, разбора и валидации, количество разобранных и отклоненных билетов
+ * и прочитанных байт передаются в TicketMetrics. Время разбора не включает валидацию
+ * и обработку билетов вызывающим кодом.
  */
 
 @Repository
 @Slf4j
 public class JsonReaderImpl implements JsonReader {
+    /**
+     * Минимальный размер участка файла для параллельного разбора
+     */
+    private static final long MIN_CHUNK_SIZE = 1L << 20;
+    /**
+     * Максимальный размер участка файла для параллельного разбора
+     */
+    private static final long MAX_CHUNK_SIZE = 64L << 20;
+    /**
+     * Количество участков на один поток пула для выравнивания нагрузки
+     */
+    private static final int CHUNKS_PER_THREAD = 4;
+    private static final byte[] ARRAY_START = {'['};
+    private static final byte[] ARRAY_END = {']'};
+    /**
+     * Шаблон имен файлов с билетами при чтении каталога
+     */
+    private static final String TICKET_FILES_GLOB = "*.{json,jsonl,ndjson,json.gz,jsonl.gz,ndjson.gz}";
+
     private final ObjectMapper mapper;
     private final String nameOfJsonStartField;
-    private final String dateFormat;
-    private final DateTimeFormatter timeFormatter;
+    private final TicketValidator ticketValidator;
+    private final ForkJoinPool forkJoinPool;
+    private final CompactTicketConverter compactTicketConverter;
+    private final TicketMetrics metrics;
+    private final RejectCounters totalRejects = new RejectCounters();
 
 
     public JsonReaderImpl(
             @Value("${name.of.json.start.field}") String nameOfJsonStartField,
-            @Value("${date.format}") String dateFormat,
-            @Qualifier("timeFormatter") DateTimeFormatter timeFormatter,
-            ObjectMapper mapper) {
+            TicketValidator ticketValidator,
+            @Qualifier("ticketsForkJoinPool") ForkJoinPool forkJoinPool,
+            CompactTicketConverter compactTicketConverter,
+            ObjectMapper mapper,
+            TicketMetrics metrics) {
         this.mapper = mapper;
         this.nameOfJsonStartField = nameOfJsonStartField;
-        this.dateFormat = dateFormat;
-        this.timeFormatter = timeFormatter;
+        this.ticketValidator = ticketValidator;
+        this.forkJoinPool = forkJoinPool;
+        this.compactTicketConverter = compactTicketConverter;
+        this.metrics = metrics;
 
     }
 
@@ -58,157 +108,492 @@ public class JsonReaderImpl implements JsonReader {
      */
     @Override
     public List<Ticket> readJsonByPath(String path) {
-        JsonFactory factory = mapper.getFactory();
         List<Ticket> ticketList = new ArrayList<>();
+        readJsonByPath(path, ticketList::add);
+        return ticketList;
+    }
+
+    /**
+     * Читает JSON-файл по указанному пути и передает каждый валидный билет обработчику,
+     * не накапливая билеты в памяти
+     *
+     * @param path путь к JSON-файлу с билетами
+     * @param consumer обработчик валидных билетов
+     * @return true если файл прочитан до конца без ошибок чтения и структуры
+     */
+    @Override
+    public boolean readJsonByPath(String path, Consumer<Ticket> consumer) {
+        return readByPath(path, null, null, consumer);
+    }
+
+    /**
+     * Читает JSON-файл по указанному пути и передает обработчику валидные билеты
+     * только заданного маршрута. Коды аэропортов сравниваются до декодирования остальных полей,
+     * билеты других маршрутов пропускаются до конца объекта, не создаются и не проверяются,
+     * поэтому и не попадают в счетчики отклоненных билетов.
+     *
+     * @param path путь к JSON-файлу с билетами
+     * @param origin код аэропорта отправления
+     * @param destination код аэропорта назначения
+     * @param consumer обработчик валидных билетов маршрута
+     */
+    @Override
+    public void readRouteByPath(String path, String origin, String destination, Consumer<Ticket> consumer) {
+        readByPath(path, origin, destination, consumer);
+    }
+
+    /**
+     * Последовательно читает JSON-файл, при заданном маршруте пропуская билеты других маршрутов
+     *
+     * @param path путь к JSON-файлу с билетами
+     * @param origin код аэропорта отправления или null для всех билетов
+     * @param destination код аэропорта назначения или null для всех билетов
+     * @param consumer обработчик валидных билетов
+     * @return true если файл прочитан до конца без ошибок чтения и структуры
+     */
+    private boolean readByPath(String path, String origin, String destination, Consumer<Ticket> consumer) {
+        JsonFactory factory = mapper.getFactory();
 
         if (path == null || path.isBlank()) {
             log.error("Путь к файлу не указан");
-            return List.of();
+            return false;
         }
         File file = new File(path);
         if (!file.isFile() || !file.canRead()) {
             log.error("Файл не найден: {}", path);
-            return List.of();
+            return false;
         }
 
-        try (JsonParser parser = factory.createParser(file)) {
-            parseJsonFile(parser, ticketList);
+        ReadStatistics statistics = new ReadStatistics(origin, destination);
+        long openStart = System.nanoTime();
+        boolean complete = false;
+        try {
+            TicketInputFormat format = TicketInputFormat.detect(file.toPath(), factory, nameOfJsonStartField);
+            try (JsonParser parser = format.gzip() ? factory.createParser(format.open(file.toPath()))
+                    : factory.createParser(file)) {
+                long parseStart = System.nanoTime();
+                metrics.record(TicketMetrics.Stage.OPEN, parseStart - openStart);
+                try {
+                    if (format.jsonLines()) {
+                        parseJsonLines(parser, consumer, statistics);
+                        complete = true;
+                    } else {
+                        complete = parseJsonFile(parser, consumer, statistics);
+                    }
+                } finally {
+                    metrics.record(TicketMetrics.Stage.PARSE, System.nanoTime() - parseStart
+                            - statistics.validationNanos() - statistics.consumerNanos());
+                    metrics.countBytes(parser.currentLocation().getByteOffset());
+                }
+            }
         } catch (IOException e) {
             log.error("Ошибка при чтении файла");
         }
-        return ticketList;
+        finishRead(path, statistics);
+        return complete;
     }
 
+
     /**
-     * Парсит JSON-файл, проверяя его базовую структуру
+     * Читает JSON-файл по указанному пути, разбирая массив билетов
+     * параллельно по участкам, и возвращает список билетов в порядке следования в файле.
+     * Файл отображается в память, массив билетов делится на участки по границам элементов,
+     * участки разбираются на ForkJoinPool, а результаты объединяются.
+     * Файл JSON Lines делится на участки по переводам строк. Сжатый файл нельзя разделить
+     * без распаковки, поэтому он читается последовательно с распаковкой в отдельном потоке.
      *
-     * @param parser JSON-парсер
-     * @param ticketList список для добавления билетов
-     * @throws IOException при ошибках чтения файла
+     * @param path путь к JSON-файлу с билетами
+     * @return список объектов Ticket или пустой список при ошибках
      */
-    private void parseJsonFile(JsonParser parser, List<Ticket> ticketList) throws IOException {
-        if (parser.nextToken() != JsonToken.START_OBJECT) {
-            log.error("Неверный формат JSON: должен начинаться с объекта");
-            return;
+    @Override
+    public List<Ticket> readJsonByPathParallel(String path) {
+        List<Ticket> ticketList = new ArrayList<>();
+
+        if (path == null || path.isBlank()) {
+            log.error("Путь к файлу не указан");
+            return ticketList;
+        }
+        File file = new File(path);
+        if (!file.isFile() || !file.canRead()) {
+            log.error("Файл не найден: {}", path);
+            return ticketList;
         }
 
-        while (parser.nextToken() != JsonToken.END_OBJECT) {
-            String fieldName = parser.currentName();
-            if (nameOfJsonStartField.equals(fieldName)) {
-                parseTicketsArray(parser, ticketList);
+        ReadStatistics statistics = new ReadStatistics(null, null);
+        long openStart = System.nanoTime();
+        TicketInputFormat format;
+        try {
+            format = TicketInputFormat.detect(file.toPath(), mapper.getFactory(), nameOfJsonStartField);
+        } catch (IOException e) {
+            log.error("Ошибка при чтении файла");
+            return ticketList;
+        }
+        if (format.gzip()) {
+            readJsonByPath(path, ticketList::add);
+            return ticketList;
+        }
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            long targetChunkSize = Math.min(MAX_CHUNK_SIZE, Math.max(MIN_CHUNK_SIZE,
+                    channel.size() / ((long) forkJoinPool.getParallelism() * CHUNKS_PER_THREAD)));
+            List<TicketsChunkSplitter.Chunk> chunks;
+            if (format.jsonLines()) {
+                chunks = TicketsChunkSplitter.splitLines(channel, targetChunkSize);
             } else {
-                log.warn(" JSON начинается с неизвестного поля: {}", fieldName);
-                parser.skipChildren();
+                long arrayStart = findTicketsArrayStart(file);
+                if (arrayStart < 0) {
+                    finishRead(path, statistics);
+                    return ticketList;
+                }
+                chunks = TicketsChunkSplitter.split(channel, arrayStart, targetChunkSize);
+            }
+            long parseStart = System.nanoTime();
+            metrics.record(TicketMetrics.Stage.OPEN, parseStart - openStart);
+
+            boolean jsonLines = format.jsonLines();
+            List<ForkJoinTask<List<Ticket>>> tasks = chunks.stream()
+                    .map(chunk -> forkJoinPool.submit(() -> parseChunk(channel, chunk, jsonLines, statistics)))
+                    .toList();
+            for (ForkJoinTask<List<Ticket>> task : tasks) {
+                ticketList.addAll(task.join());
             }
+            // участки разбираются одновременно, поэтому учитывается общее время разбора
+            metrics.record(TicketMetrics.Stage.PARSE, System.nanoTime() - parseStart);
+            metrics.countBytes(channel.size());
+        } catch (IOException e) {
+            log.error("Ошибка при чтении файла");
         }
+        finishRead(path, statistics);
+        return ticketList;
     }
 
     /**
-     * Обрабатывает массив билетов в JSON-файле
+     * Читает JSON-файл по указанному пути и возвращает билеты в компактном представлении.
+     * Каждый валидный билет преобразуется сразу после разбора, полные объекты Ticket не накапливаются.
      *
-     * @param parser JSON-парсер
-     * @param ticketList список для добавления билетов
-     * @throws IOException при ошибках чтения файла
+     * @param path путь к JSON-файлу с билетами
+     * @return список компактных билетов или пустой список при ошибках
      */
-    private void parseTicketsArray(JsonParser parser, List<Ticket> ticketList) throws IOException {
-        parser.nextToken();
-        if (parser.currentToken() != JsonToken.START_ARRAY) {
-            log.error("Поле '{}' должно содержать массив", nameOfJsonStartField);
-            return;
-        }
+    @Override
+    public List<CompactTicket> readCompactByPath(String path) {
+        List<CompactTicket> ticketList = new ArrayList<>();
+        readCompactByPath(path, ticketList::add);
+        return ticketList;
+    }
 
-        while (parser.nextToken() != JsonToken.END_ARRAY) {
+    /**
+     * Читает JSON-файл по указанному пути и передает каждый валидный билет
+     * в компактном представлении обработчику
+     *
+     * @param path путь к JSON-файлу с билетами
+     * @param consumer обработчик компактных билетов
+     * @return true если файл прочитан до конца без ошибок чтения и структуры
+     */
+    @Override
+    public boolean readCompactByPath(String path, Consumer<CompactTicket> consumer) {
+        return readJsonByPath(path, ticket -> {
+            CompactTicket compactTicket = compactTicketConverter.convert(ticket);
+            if (compactTicket != null) {
+                consumer.accept(compactTicket);
+            }
+        });
+    }
 
-            parseSingleTicket(parser, ticketList);
-        }
+    /**
+     * Читает JSON-файл по указанному пути и передает обработчику в компактном представлении
+     * валидные билеты только заданного маршрута
+     *
+     * @param path путь к JSON-файлу с билетами
+     * @param origin код аэропорта отправления
+     * @param destination код аэропорта назначения
+     * @param consumer обработчик компактных билетов маршрута
+     */
+    @Override
+    public void readCompactRouteByPath(String path, String origin, String destination, Consumer<CompactTicket> consumer) {
+        readRouteByPath(path, origin, destination, ticket -> {
+            CompactTicket compactTicket = compactTicketConverter.convert(ticket);
+            if (compactTicket != null) {
+                consumer.accept(compactTicket);
+            }
+        });
     }
 
     /**
-     * Парсит отдельный билет из JSON и добавляет его в список после валидации
+     * Находит JSON-файлы с билетами по пути к файлу, каталогу или шаблону имени файла.
+     * Шаблон допускается только в последней части пути.
      *
-     * @param parser JSON-парсер
-     * @param ticketList список билетов
+     * @param location путь к файлу, каталогу или шаблон
+     * @return пути к найденным файлам в порядке имен или пустой список
      */
-    private void parseSingleTicket(JsonParser parser, List<Ticket> ticketList) {
+    @Override
+    public List<String> resolveJsonFiles(String location) {
+        if (location == null || location.isBlank()) {
+            log.error("Путь к файлу не указан");
+            return List.of();
+        }
+        int separator = Math.max(location.lastIndexOf('/'), location.lastIndexOf(File.separatorChar));
+        String fileName = location.substring(separator + 1);
         try {
-            Ticket ticket = mapper.readValue(parser, Ticket.class);
-            if (isValidTicket(ticket)) {
-                ticketList.add(ticket);
+            if (isGlob(fileName)) {
+                Path directory = separator < 0 ? Path.of(".") : Path.of(location.substring(0, separator + 1));
+                return listFiles(directory, fileName);
             }
-        } catch (IOException e) {
-            log.error("Ошибка парсинга билета");
+            Path path = Path.of(location);
+            if (Files.isDirectory(path)) {
+                return listFiles(path, TICKET_FILES_GLOB);
+            }
+            if (Files.isRegularFile(path)) {
+                return List.of(location);
+            }
+        } catch (InvalidPathException | IOException e) {
+            log.error("Ошибка при поиске файлов: {}", location);
+            return List.of();
         }
+        log.error("Файл не найден: {}", location);
+        return List.of();
     }
 
     /**
-     * Проверяет валидность объекта билета
+     * Возвращает файлы каталога, имена которых соответствуют шаблону
      *
-     * @param ticket объект билета для проверки
-     * @return true если билет валиден, false если есть ошибки
+     * @param directory каталог
+     * @param glob шаблон имени файла
+     * @return пути к файлам в порядке имен
+     * @throws IOException при ошибках чтения каталога
      */
-    private boolean isValidTicket(Ticket ticket) {
-
-        if (ticket == null) {
-            log.warn("Найден null-билет");
-            return false;
+    private List<String> listFiles(Path directory, String glob) throws IOException {
+        List<String> files = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, glob)) {
+            for (Path file : stream) {
+                if (Files.isRegularFile(file)) {
+                    files.add(file.toString());
+                }
+            }
         }
+        files.sort(null);
+        return files;
+    }
 
-        if (ticket.getOrigin() == null || ticket.getOrigin().isBlank() ||
-                ticket.getDestination() == null || ticket.getDestination().isBlank()) {
-            log.warn("Билет с пустыми origin/destination: {}", ticket);
-            return false;
+    private static boolean isGlob(String fileName) {
+        for (int i = 0; i < fileName.length(); i++) {
+            char symbol = fileName.charAt(i);
+            if (symbol == '*' || symbol == '?' || symbol == '[' || symbol == '{') {
+                return true;
+            }
         }
+        return false;
+    }
 
-        if (ticket.getDepartureDate() == null || ticket.getArrivalDate() == null ||
-                ticket.getDepartureTime() == null || ticket.getArrivalTime() == null) {
-            log.warn("Билет с пустыми датами/временем: {}", ticket);
-            return false;
-        }
+    /**
+     * Возвращает количество билетов, отклоненных при всех чтениях с момента запуска
+     *
+     * @return карта где ключ - причина отклонения, значение - количество билетов
+     */
+    @Override
+    public Map<RejectReason, Long> getRejectCounts() {
+        return totalRejects.snapshot();
+    }
 
-        if (ticket.getPrice() == null || ticket.getPrice().compareTo(BigDecimal.ZERO) <= 0) {
-            log.warn("Билет с некорректной ценой: {}", ticket.getPrice());
-            return false;
+    /**
+     * Передает статистику чтения в метрики и выводит в журнал сводку по отклоненным билетам файла
+     *
+     * @param path путь к файлу
+     * @param statistics статистика чтения файла
+     */
+    private void finishRead(String path, ReadStatistics statistics) {
+        RejectCounters rejects = statistics.rejects();
+        metrics.record(TicketMetrics.Stage.VALIDATION, statistics.validationNanos());
+        metrics.countRead(statistics.ticketsRead());
+        metrics.countSkipped(statistics.ticketsSkipped());
+        metrics.countRejected(rejects.snapshot());
+        long total = rejects.total();
+        if (total > 0) {
+            totalRejects.add(rejects);
+            log.warn("Отклонено билетов в файле {}: {} ({})", path, total, rejects);
         }
+    }
 
+    /**
+     * Находит начало массива билетов, проверяя базовую структуру файла
+     *
+     * @param file JSON-файл с билетами
+     * @return смещение первого байта после открывающей скобки массива или -1 при ошибках
+     * @throws IOException при ошибках чтения файла
+     */
+    private long findTicketsArrayStart(File file) throws IOException {
+        try (JsonParser parser = mapper.getFactory().createParser(file)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                log.error("Неверный формат JSON: должен начинаться с объекта");
+                return -1;
+            }
 
-        return isValidDateAndTime(ticket);
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String fieldName = parser.currentName();
+                if (nameOfJsonStartField.equals(fieldName)) {
+                    if (parser.nextToken() != JsonToken.START_ARRAY) {
+                        log.error("Поле '{}' должно содержать массив", nameOfJsonStartField);
+                        return -1;
+                    }
+                    return parser.currentTokenLocation().getByteOffset() + 1;
+                }
+                log.warn(" JSON начинается с неизвестного поля: {}", fieldName);
+                parser.nextToken();
+                parser.skipChildren();
+            }
+        }
+        log.error("В файле отсутствует поле '{}'", nameOfJsonStartField);
+        return -1;
     }
 
     /**
-     * Проверяет корректность форматов даты и времени в билете
+     * Разбирает участок массива билетов, обрамляя его скобками массива,
+     * или участок файла JSON Lines как последовательность объектов.
+     * Парсер читает байты прямо из отображенного в память участка, скобки массива
+     * подставляются отдельными потоками, поэтому участок не копируется в кучу.
      *
-     * @param ticket объект билета для проверки
-     * @return true если форматы корректны, false если есть ошибки
+     * @param channel канал файла с билетами
+     * @param chunk участок массива или строк
+     * @param jsonLines участок состоит из строк JSON Lines
+     * @param statistics статистика чтения файла
+     * @return валидные билеты участка
      */
-    private boolean isValidDateAndTime(Ticket ticket) {
+    private List<Ticket> parseChunk(FileChannel channel, TicketsChunkSplitter.Chunk chunk, boolean jsonLines,
+                                    ReadStatistics statistics) {
+        List<Ticket> ticketList = new ArrayList<>();
+        if (chunk.length() > Integer.MAX_VALUE) {
+            log.error("Слишком большой элемент массива билетов");
+            return ticketList;
+        }
         try {
-            LocalDate.parse(ticket.getDepartureDate(), DateTimeFormatter.ofPattern(dateFormat));
-        } catch (DateTimeParseException e) {
-            log.warn("Некорректный формат даты отправления: {}", ticket.getDepartureDate());
-            return false;
+            ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, chunk.start(), chunk.length());
+            if (jsonLines) {
+                try (JsonParser parser = mapper.getFactory().createParser(new ByteBufferInputStream(buffer))) {
+                    parseJsonLines(parser, ticketList::add, statistics);
+                }
+                return ticketList;
+            }
+            InputStream array = new SequenceInputStream(new ByteArrayInputStream(ARRAY_START),
+                    new SequenceInputStream(new ByteBufferInputStream(buffer), new ByteArrayInputStream(ARRAY_END)));
+
+            try (JsonParser parser = mapper.getFactory().createParser(array)) {
+                parser.nextToken();
+                JsonToken token = parser.nextToken();
+                while (token != null && token != JsonToken.END_ARRAY) {
+                    parseSingleTicket(parser, ticketList::add, statistics);
+                    token = parser.nextToken();
+                }
+            }
+        } catch (IOException e) {
+            log.error("Ошибка при чтении участка файла");
         }
+        return ticketList;
+    }
 
-        try {
-            LocalDate.parse(ticket.getArrivalDate(), DateTimeFormatter.ofPattern(dateFormat));
-        } catch (DateTimeParseException e) {
-            log.warn("Некорректный формат даты прибытия: {}", ticket.getArrivalDate());
+    /**
+     * Парсит JSON-файл, проверяя его базовую структуру
+     *
+     * @param parser JSON-парсер
+     * @param consumer обработчик валидных билетов
+     * @param statistics статистика чтения файла
+     * @return true если файл - объект, массив билетов в котором найден и прочитан до конца
+     * @throws IOException при ошибках чтения файла
+     */
+    private boolean parseJsonFile(JsonParser parser, Consumer<Ticket> consumer, ReadStatistics statistics) throws IOException {
+        if (parser.nextToken() != JsonToken.START_OBJECT) {
+            log.error("Неверный формат JSON: должен начинаться с объекта");
             return false;
         }
 
-        try {
-            LocalTime.parse(ticket.getDepartureTime(), timeFormatter);
-        } catch (DateTimeParseException e) {
-            log.warn("Некорректный формат времени отправления: {}", ticket);
+        boolean ticketsRead = false;
+        JsonToken token = parser.nextToken();
+        while (token != null && token != JsonToken.END_OBJECT) {
+            String fieldName = parser.currentName();
+            if (nameOfJsonStartField.equals(fieldName)) {
+                ticketsRead = parseTicketsArray(parser, consumer, statistics);
+            } else {
+                log.warn(" JSON начинается с неизвестного поля: {}", fieldName);
+                parser.skipChildren();
+            }
+            token = parser.nextToken();
+        }
+        return ticketsRead && token == JsonToken.END_OBJECT;
+    }
+
+    /**
+     * Разбирает данные в формате JSON Lines: последовательность объектов билетов
+     * верхнего уровня, разделенных переводами строк
+     *
+     * @param parser JSON-парсер
+     * @param consumer обработчик валидных билетов
+     * @param statistics статистика чтения файла
+     * @throws IOException при ошибках чтения файла
+     */
+    private void parseJsonLines(JsonParser parser, Consumer<Ticket> consumer, ReadStatistics statistics) throws IOException {
+        while (parser.nextToken() != null) {
+            parseSingleTicket(parser, consumer, statistics);
+        }
+    }
+
+    /**
+     * Обрабатывает массив билетов в JSON-файле
+     *
+     * @param parser JSON-парсер
+     * @param consumer обработчик валидных билетов
+     * @param statistics статистика чтения файла
+     * @return true если массив прочитан до закрывающей скобки
+     * @throws IOException при ошибках чтения файла
+     */
+    private boolean parseTicketsArray(JsonParser parser, Consumer<Ticket> consumer, ReadStatistics statistics) throws IOException {
+        parser.nextToken();
+        if (parser.currentToken() != JsonToken.START_ARRAY) {
+            log.error("Поле '{}' должно содержать массив", nameOfJsonStartField);
             return false;
         }
 
+        JsonToken token = parser.nextToken();
+        while (token != null && token != JsonToken.END_ARRAY) {
+            parseSingleTicket(parser, consumer, statistics);
+            token = parser.nextToken();
+        }
+        return token == JsonToken.END_ARRAY;
+    }
+
+    /**
+     * Парсит отдельный билет из JSON и передает его обработчику после валидации.
+     * Невалидный билет учитывается в счетчиках по причине отклонения.
+     * Билет маршрута, отличного от заданного в статистике чтения, пропускается без валидации.
+     * Элемент null учитывается как null-билет, а не как ошибка разбора.
+     *
+     * @param parser JSON-парсер
+     * @param consumer обработчик валидных билетов
+     * @param statistics статистика чтения файла
+     */
+    private void parseSingleTicket(JsonParser parser, Consumer<Ticket> consumer, ReadStatistics statistics) {
+        statistics.countTicket();
+        if (parser.currentToken() == JsonToken.VALUE_NULL) {
+            statistics.rejects().increment(RejectReason.NULL_TICKET);
+            return;
+        }
         try {
-            LocalTime.parse(ticket.getArrivalTime(), timeFormatter);
-        } catch (DateTimeParseException e) {
-            log.warn("Некорректный формат времени прибытия: {}", ticket);
-            return false;
+            Ticket ticket = TicketDecoder.decodeRoute(parser, statistics.origin(), statistics.destination());
+            if (ticket == null) {
+                statistics.countSkipped();
+                return;
+            }
+            long validationStart = System.nanoTime();
+            RejectReason reason = ticketValidator.validate(ticket);
+            long consumerStart = System.nanoTime();
+            statistics.addValidationNanos(consumerStart - validationStart);
+            if (reason == null) {
+                consumer.accept(ticket);
+                statistics.addConsumerNanos(System.nanoTime() - consumerStart);
+            } else {
+                statistics.rejects().increment(reason);
+                log.debug("Билет отклонен ({}): {}", reason.getDescription(), ticket);
+            }
+        } catch (IOException e) {
+            statistics.rejects().increment(RejectReason.MALFORMED);
+            log.debug("Ошибка парсинга билета", e);
         }
-        return true;
     }
 
 }
@@ -0,0 +1,75 @@
+package ru.anikeev.tickets.repositories.imp;
+
+import ru.anikeev.tickets.entities.CodeDictionary;
+import ru.anikeev.tickets.entities.TicketTable;
+
+import java.nio.MappedByteBuffer;
+
+import static ru.anikeev.tickets.repositories.imp.TicketSnapshotFormat.*;
+
+/**
+ * Таблица билетов поверх отображенного в память файла снимка.
+ * Значения читаются из записей фиксированной длины по смещению,
+ * объекты билетов не создаются, а данные подгружаются операционной системой по мере обращения.
+ */
+final class MappedTicketSnapshot implements TicketTable {
+    private static final int SEGMENT_ROWS_MASK = (1 << SEGMENT_ROWS_SHIFT) - 1;
+
+    private final CodeDictionary dictionary;
+    private final int size;
+    private final MappedByteBuffer[] segments;
+
+    MappedTicketSnapshot(CodeDictionary dictionary, int size, MappedByteBuffer[] segments) {
+        this.dictionary = dictionary;
+        this.size = size;
+        this.segments = segments;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public CodeDictionary dictionary() {
+        return dictionary;
+    }
+
+    @Override
+    public int originId(int row) {
+        return segment(row).getInt(offset(row) + ORIGIN_OFFSET);
+    }
+
+    @Override
+    public int destinationId(int row) {
+        return segment(row).getInt(offset(row) + DESTINATION_OFFSET);
+    }
+
+    @Override
+    public int carrierId(int row) {
+        return segment(row).getInt(offset(row) + CARRIER_OFFSET);
+    }
+
+    @Override
+    public long departureMinutes(int row) {
+        return segment(row).getLong(offset(row) + DEPARTURE_OFFSET);
+    }
+
+    @Override
+    public long arrivalMinutes(int row) {
+        return segment(row).getLong(offset(row) + ARRIVAL_OFFSET);
+    }
+
+    @Override
+    public long priceCents(int row) {
+        return segment(row).getLong(offset(row) + PRICE_OFFSET);
+    }
+
+    private MappedByteBuffer segment(int row) {
+        return segments[row >>> SEGMENT_ROWS_SHIFT];
+    }
+
+    private static int offset(int row) {
+        return (row & SEGMENT_ROWS_MASK) * RECORD_SIZE;
+    }
+}
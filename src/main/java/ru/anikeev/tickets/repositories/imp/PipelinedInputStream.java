@@ -0,0 +1,138 @@
+package ru.anikeev.tickets.repositories.imp;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Поток, который читает исходный поток заранее в отдельном потоке выполнения.
+ * Используется для распаковки gzip: пока парсер разбирает очередной блок,
+ * следующие блоки уже распаковываются, поэтому время распаковки и разбора перекрывается.
+ * Между потоками передается не больше QUEUE_BLOCKS блоков, так что опережение чтения
+ * и расход памяти ограничены. Любая ошибка чтения исходного потока, включая непроверяемые
+ * исключения и ошибки JVM, передается читателю как IOException после уже прочитанных блоков.
+ */
+class PipelinedInputStream extends InputStream {
+    private static final int BLOCK_SIZE = 256 * 1024;
+    private static final int QUEUE_BLOCKS = 8;
+    private static final AtomicInteger THREAD_NUMBER = new AtomicInteger();
+    private static final Block END = new Block(new byte[0], 0, null);
+
+    private final BlockingQueue<Block> blocks = new ArrayBlockingQueue<>(QUEUE_BLOCKS);
+    private final Thread producer;
+    private Block current = new Block(new byte[0], 0, null);
+    private int position;
+    private boolean finished;
+    private volatile boolean closed;
+
+    /**
+     * Блок прочитанных данных или признак завершения чтения
+     *
+     * @param data буфер блока
+     * @param length количество прочитанных байт в буфере
+     * @param error ошибка чтения исходного потока или null
+     */
+    private record Block(byte[] data, int length, IOException error) {
+    }
+
+    PipelinedInputStream(InputStream source) {
+        producer = new Thread(() -> produce(source), "tickets-pipeline-" + THREAD_NUMBER.incrementAndGet());
+        producer.setDaemon(true);
+        producer.start();
+    }
+
+    private void produce(InputStream source) {
+        try (source) {
+            while (!closed) {
+                byte[] data = new byte[BLOCK_SIZE];
+                int length = source.readNBytes(data, 0, BLOCK_SIZE);
+                if (length == 0) {
+                    break;
+                }
+                blocks.put(new Block(data, length, null));
+            }
+            blocks.put(END);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IOException e) {
+            putQuietly(new Block(null, 0, e));
+        } catch (Throwable e) {
+            // любая другая ошибка тоже передается читателю, иначе он навсегда остался бы ждать блока
+            putQuietly(new Block(null, 0, new IOException("Ошибка чтения исходного потока", e)));
+        }
+    }
+
+    private void putQuietly(Block block) {
+        try {
+            blocks.put(block);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public int read() throws IOException {
+        if (!fill()) {
+            return -1;
+        }
+        return current.data()[position++] & 0xFF;
+    }
+
+    @Override
+    public int read(byte[] buffer, int offset, int length) throws IOException {
+        if (length == 0) {
+            return 0;
+        }
+        if (!fill()) {
+            return -1;
+        }
+        int count = Math.min(length, current.length() - position);
+        System.arraycopy(current.data(), position, buffer, offset, count);
+        position += count;
+        return count;
+    }
+
+    /**
+     * Дожидается следующего блока, если текущий прочитан полностью
+     *
+     * @return false, если данные закончились
+     * @throws IOException при ошибке чтения исходного потока или закрытом потоке
+     */
+    private boolean fill() throws IOException {
+        if (closed) {
+            throw new IOException("Поток закрыт");
+        }
+        while (!finished && position == current.length()) {
+            Block next;
+            try {
+                next = blocks.take();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Чтение прервано");
+            }
+            if (next.error() != null) {
+                finished = true;
+                throw next.error();
+            }
+            if (next == END) {
+                finished = true;
+            } else {
+                current = next;
+                position = 0;
+            }
+        }
+        return position < current.length();
+    }
+
+    @Override
+    public void close() {
+        if (!closed) {
+            closed = true;
+            producer.interrupt();
+            blocks.clear();
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package ru.anikeev.tickets.repositories.imp;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Статистика одного чтения файла: разобранные, пропущенные фильтром маршрута и отклоненные билеты,
+ * время валидации и время обработчика билетов.
+ * При параллельном разборе участки файла обновляют общую статистику без блокировок.
+ * Также хранит маршрут, которым ограничено чтение, чтобы не передавать его через все методы разбора.
+ */
+final class ReadStatistics {
+    private final String origin;
+    private final String destination;
+    private final RejectCounters rejects = new RejectCounters();
+    private final LongAdder ticketsRead = new LongAdder();
+    private final LongAdder ticketsSkipped = new LongAdder();
+    private final LongAdder validationNanos = new LongAdder();
+    private final LongAdder consumerNanos = new LongAdder();
+
+    /**
+     * @param origin код аэропорта отправления или null, если маршрут не ограничен
+     * @param destination код аэропорта назначения или null, если маршрут не ограничен
+     */
+    ReadStatistics(String origin, String destination) {
+        this.origin = origin;
+        this.destination = destination;
+    }
+
+    /**
+     * @return код аэропорта отправления, которым ограничено чтение, или null
+     */
+    String origin() {
+        return origin;
+    }
+
+    /**
+     * @return код аэропорта назначения, которым ограничено чтение, или null
+     */
+    String destination() {
+        return destination;
+    }
+
+    /**
+     * @return счетчики отклоненных билетов по причинам
+     */
+    RejectCounters rejects() {
+        return rejects;
+    }
+
+    /**
+     * Учитывает разобранный элемент массива билетов
+     */
+    void countTicket() {
+        ticketsRead.increment();
+    }
+
+    /**
+     * Учитывает билет другого маршрута, пропущенный без декодирования
+     */
+    void countSkipped() {
+        ticketsSkipped.increment();
+    }
+
+    /**
+     * @param nanos время валидации билета в наносекундах
+     */
+    void addValidationNanos(long nanos) {
+        validationNanos.add(nanos);
+    }
+
+    /**
+     * @param nanos время обработчика билета в наносекундах
+     */
+    void addConsumerNanos(long nanos) {
+        consumerNanos.add(nanos);
+    }
+
+    /**
+     * @return количество разобранных элементов массива билетов, включая отклоненные
+     */
+    long ticketsRead() {
+        return ticketsRead.sum();
+    }
+
+    /**
+     * @return количество билетов, пропущенных фильтром маршрута
+     */
+    long ticketsSkipped() {
+        return ticketsSkipped.sum();
+    }
+
+    /**
+     * @return суммарное время валидации в наносекундах
+     */
+    long validationNanos() {
+        return validationNanos.sum();
+    }
+
+    /**
+     * @return суммарное время обработчика билетов в наносекундах
+     */
+    long consumerNanos() {
+        return consumerNanos.sum();
+    }
+}
@@ -0,0 +1,76 @@
+package ru.anikeev.tickets.repositories.imp;
+
+import ru.anikeev.tickets.repositories.RejectReason;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.StringJoiner;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Потокобезопасные счетчики отклоненных билетов по причинам.
+ * Используются вместо записи в журнал каждого отклоненного билета:
+ * при параллельном разборе участки файла увеличивают общие счетчики без блокировок.
+ */
+final class RejectCounters {
+    private final EnumMap<RejectReason, LongAdder> counters = new EnumMap<>(RejectReason.class);
+
+    RejectCounters() {
+        for (RejectReason reason : RejectReason.values()) {
+            counters.put(reason, new LongAdder());
+        }
+    }
+
+    /**
+     * Учитывает отклоненный билет
+     *
+     * @param reason причина отклонения
+     */
+    void increment(RejectReason reason) {
+        counters.get(reason).increment();
+    }
+
+    /**
+     * Добавляет значения других счетчиков
+     *
+     * @param other счетчики для добавления
+     */
+    void add(RejectCounters other) {
+        other.counters.forEach((reason, counter) -> counters.get(reason).add(counter.sum()));
+    }
+
+    /**
+     * @return общее количество отклоненных билетов
+     */
+    long total() {
+        long total = 0;
+        for (LongAdder counter : counters.values()) {
+            total += counter.sum();
+        }
+        return total;
+    }
+
+    /**
+     * @return количество отклоненных билетов по каждой причине, включая нулевые
+     */
+    Map<RejectReason, Long> snapshot() {
+        EnumMap<RejectReason, Long> snapshot = new EnumMap<>(RejectReason.class);
+        counters.forEach((reason, counter) -> snapshot.put(reason, counter.sum()));
+        return snapshot;
+    }
+
+    /**
+     * @return ненулевые счетчики в виде "описание=количество"
+     */
+    @Override
+    public String toString() {
+        StringJoiner joiner = new StringJoiner(", ");
+        counters.forEach((reason, counter) -> {
+            long count = counter.sum();
+            if (count > 0) {
+                joiner.add(reason.getDescription() + "=" + count);
+            }
+        });
+        return joiner.toString();
+    }
+}
@@ -0,0 +1,221 @@
+package ru.anikeev.tickets.repositories.imp;
+
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import ru.anikeev.tickets.entities.Ticket;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+
+/**
+ * Потоковый декодер билета, работающий напрямую с токенами JsonParser.
+ * Заменяет универсальную десериализацию через ObjectMapper:
+ * поля билета выбираются по именам, которые парсер уже интернировал,
+ * и устанавливаются без рефлексии. Значения полей, не нужных для анализа
+ * (названия аэропортов), пропускаются без создания строк.
+ * В режиме фильтра маршрута коды аэропортов сравниваются с ожидаемыми прямо в буфере парсера,
+ * и билет другого маршрута пропускается до конца объекта без декодирования остальных полей.
+ */
+final class TicketDecoder {
+
+    private TicketDecoder() {
+    }
+
+    /**
+     * Декодирует билет, начиная с текущего токена START_OBJECT.
+     * После успешного или неуспешного декодирования парсер стоит на END_OBJECT билета,
+     * в том числе после ошибок приведения чисел и превышения лимитов парсера.
+     *
+     * @param parser JSON-парсер, установленный на начало объекта билета
+     * @return объект билета
+     * @throws IOException при ошибках чтения или некорректных значениях полей
+     */
+    static Ticket decode(JsonParser parser) throws IOException {
+        return decodeRoute(parser, null, null);
+    }
+
+    /**
+     * Декодирует билет, только если его маршрут совпадает с заданным.
+     * Как только встречается код аэропорта отправления или назначения, отличный от заданного,
+     * оставшиеся токены объекта пропускаются, а билет не создается и не проверяется.
+     * Билет без кодов аэропортов декодируется полностью, чтобы валидация учла причину отклонения.
+     * После вызова парсер стоит на END_OBJECT билета.
+     *
+     * @param parser JSON-парсер, установленный на начало объекта билета
+     * @param origin код аэропорта отправления или null для любого маршрута
+     * @param destination код аэропорта назначения или null для любого маршрута
+     * @return объект билета или null, если билет относится к другому маршруту
+     * @throws IOException при ошибках чтения или некорректных значениях полей
+     */
+    static Ticket decodeRoute(JsonParser parser, String origin, String destination) throws IOException {
+        if (parser.currentToken() != JsonToken.START_OBJECT) {
+            parser.skipChildren();
+            throw new JsonParseException(parser, "Билет должен быть JSON-объектом");
+        }
+
+        Ticket ticket = new Ticket();
+        String unknownField = null;
+        try {
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String fieldName = parser.currentName();
+                JsonToken value = parser.nextToken();
+                if (fieldName.equals("origin") && isOtherCode(parser, value, origin)
+                        || fieldName.equals("destination") && isOtherCode(parser, value, destination)) {
+                    skipToObjectEnd(parser);
+                    return null;
+                }
+                switch (fieldName) {
+                    case "origin" -> ticket.setOrigin(readText(parser, value));
+                    case "destination" -> ticket.setDestination(readText(parser, value));
+                    case "departure_date" -> ticket.setDepartureDate(readText(parser, value));
+                    case "departure_time" -> ticket.setDepartureTime(readText(parser, value));
+                    case "arrival_date" -> ticket.setArrivalDate(readText(parser, value));
+                    case "arrival_time" -> ticket.setArrivalTime(readText(parser, value));
+                    case "carrier" -> ticket.setCarrier(readText(parser, value));
+                    case "price" -> ticket.setPrice(readDecimal(parser, value));
+                    case "stops" -> ticket.setStops(readInt(parser, value));
+                    case "origin_name", "destination_name" -> parser.skipChildren();
+                    default -> {
+                        parser.skipChildren();
+                        unknownField = fieldName;
+                    }
+                }
+            }
+        } catch (JsonProcessingException e) {
+            // кроме синтаксических ошибок сюда попадают превышения лимитов StreamReadConstraints
+            // и переполнения при приведении чисел: ошибочное значение отброшено, объект дочитывается
+            skipToObjectEnd(parser);
+            throw e;
+        }
+
+        if (unknownField != null) {
+            throw new JsonParseException(parser, "Неизвестное поле билета: " + unknownField);
+        }
+        return ticket;
+    }
+
+    /**
+     * Пропускает оставшиеся токены текущего объекта билета,
+     * чтобы ошибка в одном билете не нарушала разбор следующих.
+     * После нарушения лимита парсера отброшенное значение возвращается как null,
+     * поэтому конец данных определяется по закрытию парсера, а не по первому null.
+     *
+     * @param parser JSON-парсер внутри объекта билета
+     * @throws IOException при ошибках чтения
+     */
+    private static void skipToObjectEnd(JsonParser parser) throws IOException {
+        int depth = 1;
+        while (depth > 0) {
+            JsonToken token = parser.nextToken();
+            if (token == null) {
+                if (parser.isClosed()) {
+                    return;
+                }
+                continue;
+            }
+            if (token.isStructStart()) {
+                depth++;
+            } else if (token.isStructEnd()) {
+                depth--;
+            }
+        }
+    }
+
+    /**
+     * Сравнивает строковое значение кода аэропорта с ожидаемым без создания строки.
+     * Число или логическое значение вместо кода не может совпасть с кодом маршрута,
+     * поэтому такой билет тоже считается билетом другого маршрута. Null передается дальше,
+     * чтобы валидация учла отсутствующий код, а вложенное значение - чтобы билет
+     * был отклонен как некорректный.
+     *
+     * @param parser JSON-парсер, установленный на значение поля
+     * @param value токен значения
+     * @param expected ожидаемый код или null, если маршрут не фильтруется
+     * @return true если значение - скаляр, отличный от ожидаемого кода
+     * @throws IOException при ошибках чтения
+     */
+    private static boolean isOtherCode(JsonParser parser, JsonToken value, String expected) throws IOException {
+        if (expected == null || value == JsonToken.VALUE_NULL || !value.isScalarValue()) {
+            return false;
+        }
+        if (value != JsonToken.VALUE_STRING) {
+            return true;
+        }
+        int length = parser.getTextLength();
+        if (length != expected.length()) {
+            return true;
+        }
+        char[] text = parser.getTextCharacters();
+        int offset = parser.getTextOffset();
+        for (int i = 0; i < length; i++) {
+            if (text[offset + i] != expected.charAt(i)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String readText(JsonParser parser, JsonToken value) throws IOException {
+        if (value.isStructStart()) {
+            parser.skipChildren();
+            throw new JsonParseException(parser, "Ожидалось строковое значение поля " + parser.currentName());
+        }
+        return parser.getValueAsString();
+    }
+
+    private static BigDecimal readDecimal(JsonParser parser, JsonToken value) throws IOException {
+        if (value.isNumeric()) {
+            return parser.getDecimalValue();
+        }
+        if (value == JsonToken.VALUE_NULL) {
+            return null;
+        }
+        if (value == JsonToken.VALUE_STRING) {
+            String text = parser.getText().trim();
+            if (text.isEmpty()) {
+                return null;
+            }
+            try {
+                return new BigDecimal(text);
+            } catch (NumberFormatException e) {
+                throw new JsonParseException(parser, "Некорректная цена билета: " + text);
+            }
+        }
+        parser.skipChildren();
+        throw new JsonParseException(parser, "Ожидалось числовое значение цены");
+    }
+
+    /**
+     * Читает целое значение поля так же, как это делал Jackson при привязке к int:
+     * дробное число отбрасывает дробную часть, строка разбирается как целое,
+     * а null и пустая строка дают ноль
+     *
+     * @param parser JSON-парсер, установленный на значение поля
+     * @param value токен значения
+     * @return целое значение поля
+     * @throws IOException если значение не приводится к int
+     */
+    private static int readInt(JsonParser parser, JsonToken value) throws IOException {
+        if (value.isNumeric()) {
+            return parser.getIntValue();
+        }
+        if (value == JsonToken.VALUE_NULL) {
+            return 0;
+        }
+        if (value == JsonToken.VALUE_STRING) {
+            String text = parser.getText().trim();
+            if (text.isEmpty()) {
+                return 0;
+            }
+            try {
+                return Integer.parseInt(text);
+            } catch (NumberFormatException e) {
+                throw new JsonParseException(parser, "Некорректное целое значение поля " + parser.currentName());
+            }
+        }
+        parser.skipChildren();
+        throw new JsonParseException(parser, "Ожидалось целое значение поля " + parser.currentName());
+    }
+}
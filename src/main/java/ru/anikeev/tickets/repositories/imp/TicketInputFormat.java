@@ -0,0 +1,137 @@
+package ru.anikeev.tickets.repositories.imp;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Locale;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Формат файла с билетами.
+ * Сжатие gzip распознается по сигнатуре 1f 8b в первых байтах файла.
+ * Формат JSON Lines (NDJSON, один билет на строку) определяется прежде всего по расширению
+ * без учета суффикса .gz: .jsonl и .ndjson - построчный формат, .json - объект с массивом билетов.
+ * Для файлов с другими расширениями формат определяется по началу данных после распаковки:
+ * файл считается построчным, если первый объект закрывается в пределах SNIFF_SIZE байт,
+ * не содержит поля массива билетов и за ним следует второй объект верхнего уровня.
+ * Поэтому небольшой файл из одного объекта без массива билетов не принимается за JSON Lines.
+ *
+ * @param gzip файл сжат gzip
+ * @param jsonLines каждый билет записан отдельным JSON-объектом верхнего уровня
+ */
+record TicketInputFormat(boolean gzip, boolean jsonLines) {
+    /**
+     * Количество байт начала данных, по которым определяется формат
+     */
+    private static final int SNIFF_SIZE = 64 * 1024;
+    /**
+     * Размер буфера распаковки gzip
+     */
+    private static final int GZIP_BUFFER_SIZE = 64 * 1024;
+    /**
+     * Суффикс сжатых файлов, не влияющий на определение формата по расширению
+     */
+    private static final String GZIP_SUFFIX = ".gz";
+
+    /**
+     * Определяет формат файла с билетами
+     *
+     * @param file файл с билетами
+     * @param factory фабрика JSON-парсеров
+     * @param startField имя поля с массивом билетов
+     * @return формат файла
+     * @throws IOException при ошибках чтения файла
+     */
+    static TicketInputFormat detect(Path file, JsonFactory factory, String startField) throws IOException {
+        boolean gzip;
+        try (InputStream input = Files.newInputStream(file)) {
+            gzip = input.read() == 0x1f && input.read() == 0x8b;
+        }
+        Boolean jsonLinesByName = jsonLinesByName(file);
+        if (jsonLinesByName != null) {
+            return new TicketInputFormat(gzip, jsonLinesByName);
+        }
+        byte[] prefix;
+        try (InputStream input = gzip ? new GZIPInputStream(Files.newInputStream(file), GZIP_BUFFER_SIZE)
+                : Files.newInputStream(file)) {
+            prefix = input.readNBytes(SNIFF_SIZE);
+        } catch (IOException e) {
+            // поврежденный архив: ошибка будет выведена при чтении
+            return new TicketInputFormat(gzip, false);
+        }
+        return new TicketInputFormat(gzip, isJsonLines(prefix, factory, startField));
+    }
+
+    /**
+     * Открывает поток данных файла. Сжатый файл распаковывается в отдельном потоке,
+     * пока вызывающий код разбирает уже распакованные блоки.
+     *
+     * @param file файл с билетами
+     * @return поток распакованных данных
+     * @throws IOException при ошибках открытия файла
+     */
+    InputStream open(Path file) throws IOException {
+        InputStream input = Files.newInputStream(file);
+        if (!gzip) {
+            return input;
+        }
+        try {
+            return new PipelinedInputStream(new GZIPInputStream(input, GZIP_BUFFER_SIZE));
+        } catch (IOException e) {
+            input.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Определяет формат по расширению имени файла без учета суффикса .gz
+     *
+     * @param file файл с билетами
+     * @return true для .jsonl и .ndjson, false для .json, null для других расширений
+     */
+    private static Boolean jsonLinesByName(Path file) {
+        String name = file.getFileName().toString().toLowerCase(Locale.ROOT);
+        if (name.endsWith(GZIP_SUFFIX)) {
+            name = name.substring(0, name.length() - GZIP_SUFFIX.length());
+        }
+        if (name.endsWith(".jsonl") || name.endsWith(".ndjson")) {
+            return true;
+        }
+        if (name.endsWith(".json")) {
+            return false;
+        }
+        return null;
+    }
+
+    private static boolean isJsonLines(byte[] prefix, JsonFactory factory, String startField) {
+        try (JsonParser parser = factory.createParser(prefix)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                return false;
+            }
+            int depth = 1;
+            while (depth > 0) {
+                JsonToken token = parser.nextToken();
+                if (token == null) {
+                    return false;
+                }
+                if (depth == 1 && token == JsonToken.FIELD_NAME && startField.equals(parser.currentName())) {
+                    return false;
+                }
+                if (token.isStructStart()) {
+                    depth++;
+                } else if (token.isStructEnd()) {
+                    depth--;
+                }
+            }
+            return parser.nextToken() == JsonToken.START_OBJECT;
+        } catch (IOException e) {
+            // начало данных обрезано посреди значения - это первый объект большого файла
+            return false;
+        }
+    }
+}
@@ -0,0 +1,165 @@
+package ru.anikeev.tickets.repositories.imp;
+
+import ru.anikeev.tickets.entities.CodeDictionary;
+import ru.anikeev.tickets.entities.TicketTable;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Бинарный формат снимка провалидированных билетов.
+ * Структура файла (big-endian):
+ * - заголовок: сигнатура, версия формата, размер и время изменения исходного JSON-файла,
+ *   длина и UTF-8 байты описания преобразования дат (форматы даты и времени, по которым
+ *   строки переведены в минуты): снимок, записанный с другими форматами, не используется;
+ * - словарь кодов: количество кодов, затем для каждого длина в байтах (-1 для null) и UTF-8 байты;
+ * - количество билетов и записи фиксированной длины RECORD_SIZE байт:
+ *   origin id, destination id, carrier id (int), вылет, прилет в минутах и цена в копейках (long).
+ * Записи читаются напрямую из отображенного в память файла без десериализации.
+ */
+final class TicketSnapshotFormat {
+    static final int MAGIC = 0x544B5453;
+    static final int VERSION = 2;
+    static final int RECORD_SIZE = 36;
+    static final int ORIGIN_OFFSET = 0;
+    static final int DESTINATION_OFFSET = 4;
+    static final int CARRIER_OFFSET = 8;
+    static final int DEPARTURE_OFFSET = 12;
+    static final int ARRIVAL_OFFSET = 20;
+    static final int PRICE_OFFSET = 28;
+    /**
+     * Количество записей в одном отображенном сегменте - степень двойки,
+     * чтобы сегмент и смещение в нем вычислялись сдвигом и маской
+     */
+    static final int SEGMENT_ROWS_SHIFT = 25;
+
+    private TicketSnapshotFormat() {
+    }
+
+    /**
+     * Записывает таблицу билетов в файл снимка.
+     * Файл сначала пишется во временный файл и затем атомарно переименовывается.
+     *
+     * @param table таблица билетов
+     * @param snapshot путь к файлу снимка
+     * @param sourceSize размер исходного JSON-файла
+     * @param sourceLastModified время изменения исходного JSON-файла в миллисекундах
+     * @param conversion описание преобразования дат, с которым получены минуты вылета и прилета
+     * @throws IOException при ошибках записи
+     */
+    static void write(TicketTable table, Path snapshot, long sourceSize, long sourceLastModified,
+                      String conversion) throws IOException {
+        Path directory = snapshot.toAbsolutePath().getParent();
+        Path temporary = Files.createTempFile(directory, snapshot.getFileName().toString(), ".tmp");
+        try (OutputStream stream = Files.newOutputStream(temporary);
+             DataOutputStream output = new DataOutputStream(new BufferedOutputStream(stream, 1 << 16))) {
+            output.writeInt(MAGIC);
+            output.writeInt(VERSION);
+            output.writeLong(sourceSize);
+            output.writeLong(sourceLastModified);
+            byte[] conversionBytes = conversion.getBytes(StandardCharsets.UTF_8);
+            output.writeInt(conversionBytes.length);
+            output.write(conversionBytes);
+
+            CodeDictionary dictionary = table.dictionary();
+            output.writeInt(dictionary.size());
+            for (int id = 0; id < dictionary.size(); id++) {
+                String code = dictionary.codeOf(id);
+                if (code == null) {
+                    output.writeInt(-1);
+                } else {
+                    byte[] bytes = code.getBytes(StandardCharsets.UTF_8);
+                    output.writeInt(bytes.length);
+                    output.write(bytes);
+                }
+            }
+
+            output.writeInt(table.size());
+            for (int row = 0; row < table.size(); row++) {
+                output.writeInt(table.originId(row));
+                output.writeInt(table.destinationId(row));
+                output.writeInt(table.carrierId(row));
+                output.writeLong(table.departureMinutes(row));
+                output.writeLong(table.arrivalMinutes(row));
+                output.writeLong(table.priceCents(row));
+            }
+        } catch (IOException e) {
+            Files.deleteIfExists(temporary);
+            throw e;
+        }
+        Files.move(temporary, snapshot, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Отображает файл снимка в память, если он соответствует текущей версии исходного файла
+     *
+     * @param snapshot путь к файлу снимка
+     * @param sourceSize размер исходного JSON-файла
+     * @param sourceLastModified время изменения исходного JSON-файла в миллисекундах
+     * @param conversion текущее описание преобразования дат
+     * @return таблица билетов поверх отображенного файла или null, если снимок устарел,
+     * записан с другим преобразованием дат или имеет другой формат
+     * @throws IOException при ошибках чтения
+     */
+    static MappedTicketSnapshot map(Path snapshot, long sourceSize, long sourceLastModified,
+                                    String conversion) throws IOException {
+        try (FileChannel channel = FileChannel.open(snapshot, StandardOpenOption.READ)) {
+            long fileSize = channel.size();
+            ByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, Math.min(fileSize, Integer.MAX_VALUE));
+            if (fileSize < 28 || header.getInt() != MAGIC || header.getInt() != VERSION
+                    || header.getLong() != sourceSize || header.getLong() != sourceLastModified) {
+                return null;
+            }
+            byte[] expectedConversion = conversion.getBytes(StandardCharsets.UTF_8);
+            if (header.getInt() != expectedConversion.length) {
+                return null;
+            }
+            byte[] conversionBytes = new byte[expectedConversion.length];
+            header.get(conversionBytes);
+            if (!Arrays.equals(conversionBytes, expectedConversion)) {
+                return null;
+            }
+
+            CodeDictionary dictionary = new CodeDictionary();
+            int codes = header.getInt();
+            for (int id = 0; id < codes; id++) {
+                int length = header.getInt();
+                if (length < 0) {
+                    dictionary.idOf(null);
+                } else {
+                    byte[] bytes = new byte[length];
+                    header.get(bytes);
+                    dictionary.idOf(new String(bytes, StandardCharsets.UTF_8));
+                }
+            }
+
+            int rows = header.getInt();
+            long recordsStart = header.position();
+            if (recordsStart + (long) rows * RECORD_SIZE != fileSize) {
+                return null;
+            }
+
+            int segmentRows = 1 << SEGMENT_ROWS_SHIFT;
+            int segmentCount = (rows + segmentRows - 1) >>> SEGMENT_ROWS_SHIFT;
+            MappedByteBuffer[] segments = new MappedByteBuffer[segmentCount];
+            for (int segment = 0; segment < segmentCount; segment++) {
+                long firstRow = (long) segment << SEGMENT_ROWS_SHIFT;
+                long segmentSize = Math.min(segmentRows, rows - firstRow) * RECORD_SIZE;
+                segments[segment] = channel.map(FileChannel.MapMode.READ_ONLY,
+                        recordsStart + firstRow * RECORD_SIZE, segmentSize);
+            }
+            return new MappedTicketSnapshot(dictionary, rows, segments);
+        }
+    }
+}
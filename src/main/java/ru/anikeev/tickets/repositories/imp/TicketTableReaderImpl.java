@@ -0,0 +1,127 @@
+package ru.anikeev.tickets.repositories.imp;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Repository;
+import ru.anikeev.tickets.entities.ColumnarTicketTable;
+import ru.anikeev.tickets.entities.TicketTable;
+import ru.anikeev.tickets.entities.TicketTableIndex;
+import ru.anikeev.tickets.repositories.JsonReader;
+import ru.anikeev.tickets.repositories.TicketTableReader;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Реализация TicketTableReader, загружающая билеты в колоночную таблицу.
+ * Билеты читаются потоково через JsonReader, сразу переводятся в компактный вид
+ * и раскладываются по примитивным колонкам без промежуточного списка.
+ * Загруженная таблица может сохраняться в бинарный снимок, который при следующих
+ * запусках отображается в память вместо повторного разбора JSON.
+ * По загруженной таблице параллельно на пуле ticketsForkJoinPool строятся индексы
+ * маршрутов и авиакомпаний.
+ */
+@Repository
+@Slf4j
+public class TicketTableReaderImpl implements TicketTableReader {
+    /**
+     * Расширение файла бинарного снимка
+     */
+    private static final String SNAPSHOT_EXTENSION = ".tkts";
+
+    private final JsonReader jsonReader;
+    private final ForkJoinPool forkJoinPool;
+    /**
+     * Описание настроек разбора, от которых зависит содержимое таблицы:
+     * поле массива билетов и форматы даты и времени. Сохраняется в снимке
+     */
+    private final String conversion;
+
+    public TicketTableReaderImpl(JsonReader jsonReader,
+                                 @Qualifier("ticketsForkJoinPool") ForkJoinPool forkJoinPool,
+                                 @Value("${name.of.json.start.field}") String nameOfJsonStartField,
+                                 @Value("${date.format}") String dateFormat,
+                                 @Value("${time.format}") String timeFormat) {
+        this.jsonReader = jsonReader;
+        this.forkJoinPool = forkJoinPool;
+        this.conversion = "name.of.json.start.field=" + nameOfJsonStartField
+                + "\ndate.format=" + dateFormat + "\ntime.format=" + timeFormat;
+    }
+
+    /**
+     * Читает JSON-файл по указанному пути и возвращает таблицу билетов
+     *
+     * @param path путь к JSON-файлу с билетами
+     * @return таблица билетов или пустая таблица при ошибках
+     */
+    @Override
+    public TicketTable readTableByPath(String path) {
+        ColumnarTicketTable table = new ColumnarTicketTable();
+        jsonReader.readCompactByPath(path, table::add);
+        return table;
+    }
+
+    /**
+     * Возвращает таблицу билетов из бинарного снимка, если он соответствует
+     * размеру и времени изменения JSON-файла и текущим настройкам разбора, иначе читает JSON-файл.
+     * Снимок сохраняется только после чтения файла до конца без ошибок, давшего хотя бы один билет:
+     * обрезанный или поврежденный файл не должен закрепиться в снимке как актуальный.
+     *
+     * @param path путь к JSON-файлу с билетами
+     * @return таблица билетов или пустая таблица при ошибках
+     */
+    @Override
+    public TicketTable readTableWithSnapshot(String path) {
+        if (path == null || path.isBlank() || !new File(path).isFile()) {
+            return readTableByPath(path);
+        }
+        File file = new File(path);
+        long size = file.length();
+        long lastModified = file.lastModified();
+        Path snapshot = Path.of(path + SNAPSHOT_EXTENSION);
+
+        if (snapshot.toFile().isFile()) {
+            try {
+                TicketTable table = TicketSnapshotFormat.map(snapshot, size, lastModified, conversion);
+                if (table != null) {
+                    return table;
+                }
+                log.info("Снимок {} устарел, файл будет прочитан заново", snapshot);
+            } catch (IOException | RuntimeException e) {
+                log.warn("Не удалось прочитать снимок {}", snapshot);
+            }
+        }
+
+        ColumnarTicketTable table = new ColumnarTicketTable();
+        boolean complete = jsonReader.readCompactByPath(path, table::add);
+        if (!complete || table.size() == 0) {
+            log.warn("Снимок {} не сохранен: файл прочитан с ошибками или не содержит билетов", snapshot);
+            return table;
+        }
+        try {
+            TicketSnapshotFormat.write(table, snapshot, size, lastModified, conversion);
+        } catch (IOException e) {
+            log.warn("Не удалось сохранить снимок {}", snapshot);
+        }
+        return table;
+    }
+
+    /**
+     * Загружает таблицу билетов со снимком и строит по ней индексы маршрутов и авиакомпаний
+     *
+     * @param path путь к JSON-файлу с билетами
+     * @return индекс таблицы билетов
+     */
+    @Override
+    public TicketTableIndex readIndexedTable(String path) {
+        TicketTable table = readTableWithSnapshot(path);
+        long start = System.nanoTime();
+        TicketTableIndex index = TicketTableIndex.build(table, forkJoinPool);
+        log.info("Индекс {} билетов по {} маршрутам построен за {} мс", table.size(), index.routeCount(),
+                (System.nanoTime() - start) / 1_000_000);
+        return index;
+    }
+}
@@ -0,0 +1,75 @@
+package ru.anikeev.tickets.repositories.imp;
+
+import org.springframework.stereotype.Component;
+import ru.anikeev.tickets.entities.Ticket;
+import ru.anikeev.tickets.repositories.RejectReason;
+
+/**
+ * Проверяет билеты перед передачей в анализ и возвращает причину отклонения.
+ * Даты и время проверяются через общий DateTimeCache: каждая различная строка
+ * разбирается один раз, и результат затем используется при расчете продолжительности полета.
+ */
+@Component
+public class TicketValidator {
+    private final DateTimeCache dateTimeCache;
+
+    public TicketValidator(DateTimeCache dateTimeCache) {
+        this.dateTimeCache = dateTimeCache;
+    }
+
+    /**
+     * Проверяет билет
+     *
+     * @param ticket билет для проверки
+     * @return причина отклонения или null, если билет валиден
+     */
+    public RejectReason validate(Ticket ticket) {
+        if (ticket == null) {
+            return RejectReason.NULL_TICKET;
+        }
+        if (ticket.getOrigin() == null || ticket.getOrigin().isBlank() ||
+                ticket.getDestination() == null || ticket.getDestination().isBlank()) {
+            return RejectReason.MISSING_ROUTE;
+        }
+        if (ticket.getDepartureDate() == null || ticket.getArrivalDate() == null ||
+                ticket.getDepartureTime() == null || ticket.getArrivalTime() == null) {
+            return RejectReason.MISSING_DATE_TIME;
+        }
+        if (ticket.getPrice() == null || ticket.getPrice().signum() <= 0) {
+            return RejectReason.INVALID_PRICE;
+        }
+        if (!isValidDate(ticket.getDepartureDate())) {
+            return RejectReason.INVALID_DEPARTURE_DATE;
+        }
+        if (!isValidDate(ticket.getArrivalDate())) {
+            return RejectReason.INVALID_ARRIVAL_DATE;
+        }
+        if (!isValidTime(ticket.getDepartureTime())) {
+            return RejectReason.INVALID_DEPARTURE_TIME;
+        }
+        if (!isValidTime(ticket.getArrivalTime())) {
+            return RejectReason.INVALID_ARRIVAL_TIME;
+        }
+        return null;
+    }
+
+    /**
+     * Проверяет строку даты на соответствие date.format
+     *
+     * @param date строка с датой
+     * @return true если дату можно разобрать
+     */
+    public boolean isValidDate(String date) {
+        return dateTimeCache.epochDay(date) != DateTimeCache.INVALID_DATE;
+    }
+
+    /**
+     * Проверяет строку времени на соответствие time.format
+     *
+     * @param time строка со временем
+     * @return true если время можно разобрать
+     */
+    public boolean isValidTime(String time) {
+        return dateTimeCache.secondOfDay(time) != DateTimeCache.INVALID_TIME;
+    }
+}
@@ -0,0 +1,143 @@
+package ru.anikeev.tickets.repositories.imp;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Делит массив билетов в отображенном в память файле на участки,
+ * которые можно разбирать независимо друг от друга.
+ * Границы участков проходят только по запятым между элементами массива,
+ * поэтому каждый участок, обрамленный скобками, является корректным JSON-массивом.
+ * Файл в формате JSON Lines делится по переводам строк: каждый участок состоит из целых строк.
+ */
+class TicketsChunkSplitter {
+    /**
+     * Размер окна отображения файла в память
+     */
+    private static final int WINDOW_SIZE = 1 << 30;
+
+    private TicketsChunkSplitter() {
+    }
+
+    /**
+     * Участок файла с элементами массива билетов
+     *
+     * @param start смещение первого байта участка
+     * @param end смещение байта, следующего за последним байтом участка
+     */
+    record Chunk(long start, long end) {
+        long length() {
+            return end - start;
+        }
+    }
+
+    /**
+     * Находит границы участков массива билетов
+     *
+     * @param channel канал файла с билетами
+     * @param arrayStart смещение первого байта после открывающей скобки массива
+     * @param targetChunkSize желаемый размер участка в байтах
+     * @return участки массива в порядке следования в файле
+     * @throws IOException при ошибках чтения файла
+     */
+    static List<Chunk> split(FileChannel channel, long arrayStart, long targetChunkSize) throws IOException {
+        List<Chunk> chunks = new ArrayList<>();
+        long size = channel.size();
+        long chunkStart = arrayStart;
+        long position = arrayStart;
+        int depth = 0;
+        boolean inString = false;
+        boolean escaped = false;
+
+        while (position < size) {
+            MappedByteBuffer window = channel.map(FileChannel.MapMode.READ_ONLY, position,
+                    Math.min(WINDOW_SIZE, size - position));
+            int limit = window.limit();
+            for (int i = 0; i < limit; i++) {
+                byte current = window.get(i);
+                if (inString) {
+                    if (escaped) {
+                        escaped = false;
+                    } else if (current == '\\') {
+                        escaped = true;
+                    } else if (current == '"') {
+                        inString = false;
+                    }
+                    continue;
+                }
+                switch (current) {
+                    case '"' -> inString = true;
+                    case '{', '[' -> depth++;
+                    case '}' -> depth--;
+                    case ']' -> {
+                        if (depth == 0) {
+                            chunks.add(new Chunk(chunkStart, position + i));
+                            return chunks;
+                        }
+                        depth--;
+                    }
+                    case ',' -> {
+                        if (depth == 0 && position + i - chunkStart >= targetChunkSize) {
+                            chunks.add(new Chunk(chunkStart, position + i));
+                            chunkStart = position + i + 1;
+                        }
+                    }
+                    default -> {
+                    }
+                }
+            }
+            position += limit;
+        }
+
+        chunks.add(new Chunk(chunkStart, size));
+        return chunks;
+    }
+
+    /**
+     * Находит границы участков файла в формате JSON Lines.
+     * Участок заканчивается сразу после первого перевода строки, найденного
+     * после желаемого размера, поэтому просматриваются только байты около границ.
+     *
+     * @param channel канал файла с билетами
+     * @param targetChunkSize желаемый размер участка в байтах
+     * @return участки файла в порядке следования
+     * @throws IOException при ошибках чтения файла
+     */
+    static List<Chunk> splitLines(FileChannel channel, long targetChunkSize) throws IOException {
+        List<Chunk> chunks = new ArrayList<>();
+        long size = channel.size();
+        ByteBuffer buffer = ByteBuffer.allocate(64 * 1024);
+        long chunkStart = 0;
+        while (chunkStart < size) {
+            long chunkEnd = nextLineStart(channel, buffer, Math.min(size, chunkStart + targetChunkSize), size);
+            chunks.add(new Chunk(chunkStart, chunkEnd));
+            chunkStart = chunkEnd;
+        }
+        return chunks;
+    }
+
+    /**
+     * @return смещение байта после первого перевода строки, начиная с from, или размер файла
+     */
+    private static long nextLineStart(FileChannel channel, ByteBuffer buffer, long from, long size) throws IOException {
+        long position = from;
+        while (position < size) {
+            buffer.clear();
+            int read = channel.read(buffer, position);
+            if (read <= 0) {
+                break;
+            }
+            for (int i = 0; i < read; i++) {
+                if (buffer.get(i) == '\n') {
+                    return position + i + 1;
+                }
+            }
+            position += read;
+        }
+        return size;
+    }
+}
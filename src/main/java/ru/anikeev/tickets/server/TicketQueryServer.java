@@ -0,0 +1,255 @@
+package ru.anikeev.tickets.server;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+import ru.anikeev.tickets.dto.TicketDTO;
+import ru.anikeev.tickets.metrics.TicketMetrics;
+import ru.anikeev.tickets.services.AsyncTicketService;
+import ru.anikeev.tickets.services.EmptyRouteException;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Локальный HTTP-сервер запросов анализа для профиля server.
+ * Приложение запускается один раз и остается в памяти: бины сервисов, кэш результатов,
+ * кэш дат и прогретый JIT используются всеми запросами, поэтому повторный анализ
+ * занимает миллисекунды вместо запуска JVM и контекста Spring.
+ * Запросы:
+ * - GET /analysis?path=...&origin=...&destination=... - анализ файла по маршруту,
+ *   при отсутствии origin и destination используется маршрут из настроек;
+ * - GET /metrics - текстовый отчет TicketMetrics.
+ * Потоки сервера только разбирают запрос и передают его в AsyncTicketService, ответ
+ * отправляется по завершении анализа из потока анализа, поэтому долгий анализ одного клиента
+ * не блокирует других, а одинаковые одновременные запросы выполняются один раз.
+ * Профиль server входит в группу с prod и берет из него все остальные настройки.
+ * Ленивая инициализация и тихий запуск задаются отдельным профилем cli и на сервер не распространяются.
+ */
+@Component
+@Profile("server")
+@Slf4j
+public class TicketQueryServer {
+    private final AsyncTicketService asyncTicketService;
+    private final TicketMetrics metrics;
+    private final ObjectMapper mapper;
+    private final String host;
+    private final int port;
+    private final int threads;
+    private HttpServer server;
+    private ExecutorService requestExecutor;
+
+    public TicketQueryServer(AsyncTicketService asyncTicketService,
+                             TicketMetrics metrics,
+                             ObjectMapper mapper,
+                             @Value("${query.server.host:127.0.0.1}") String host,
+                             @Value("${query.server.port:8085}") int port,
+                             @Value("${query.server.threads:0}") int threads) {
+        this.asyncTicketService = asyncTicketService;
+        this.metrics = metrics;
+        this.mapper = mapper;
+        this.host = host;
+        this.port = port;
+        this.threads = threads > 0 ? threads : Math.max(2, Runtime.getRuntime().availableProcessors() / 2);
+    }
+
+    /**
+     * Запускает сервер на заданном адресе
+     *
+     * @throws IOException если адрес занят или недоступен
+     */
+    @PostConstruct
+    public void start() throws IOException {
+        AtomicInteger threadNumber = new AtomicInteger();
+        requestExecutor = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "tickets-server-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        server = HttpServer.create(new InetSocketAddress(host, port), 0);
+        server.createContext("/analysis", this::handleAnalysis);
+        server.createContext("/metrics", this::handleMetrics);
+        server.setExecutor(requestExecutor);
+        server.start();
+        log.info("Сервер запросов анализа запущен: http://{}:{}", host, getPort());
+    }
+
+    /**
+     * Останавливает сервер, дожидаясь завершения отправки начатых ответов не дольше секунды
+     */
+    @PreDestroy
+    public void stop() {
+        if (server != null) {
+            server.stop(1);
+        }
+        if (requestExecutor != null) {
+            requestExecutor.shutdown();
+        }
+    }
+
+    /**
+     * @return порт, на котором принимаются запросы
+     */
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    private void handleAnalysis(HttpExchange exchange) throws IOException {
+        if (!"GET".equals(exchange.getRequestMethod())) {
+            sendError(exchange, 405, "Поддерживается только метод GET");
+            return;
+        }
+        Map<String, String> parameters = parseQuery(exchange.getRequestURI().getRawQuery());
+        String path = parameters.get("path");
+        if (path == null || path.isBlank()) {
+            sendError(exchange, 400, "Не указан параметр path");
+            return;
+        }
+        if (!isReadableFile(path)) {
+            sendError(exchange, 404, "Файл не найден: " + path);
+            return;
+        }
+        String origin = parameters.get("origin");
+        String destination = parameters.get("destination");
+        if ((origin == null) != (destination == null)) {
+            sendError(exchange, 400, "Параметры origin и destination указываются вместе");
+            return;
+        }
+
+        (origin == null
+                ? asyncTicketService.resultOfAnalysAsync(path)
+                : asyncTicketService.resultOfAnalysAsync(path, origin, destination))
+                .whenComplete((result, error) -> {
+                    try {
+                        if (error == null) {
+                            send(exchange, 200, "application/json", toJson(path, origin, destination, result));
+                        } else {
+                            sendFailure(exchange, error);
+                        }
+                    } catch (IOException e) {
+                        log.debug("Ошибка отправки ответа клиенту", e);
+                    } catch (RuntimeException e) {
+                        log.error("Ошибка формирования ответа", e);
+                        sendQuietly(exchange, 500, "Ошибка формирования ответа");
+                    } finally {
+                        exchange.close();
+                    }
+                });
+    }
+
+    private void handleMetrics(HttpExchange exchange) throws IOException {
+        send(exchange, 200, "text/plain; charset=utf-8", metrics.report().getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Формирует ответ анализа. Продолжительности передаются в минутах.
+     */
+    private byte[] toJson(String path, String origin, String destination, TicketDTO result) throws IOException {
+        ObjectNode response = mapper.createObjectNode();
+        response.put("path", path);
+        if (origin != null) {
+            response.put("origin", origin);
+            response.put("destination", destination);
+        }
+        response.put("differenceBetweenAverageAndMedianPrice", result.getDifferenceBetweenAverageAndMedianPrice());
+        ObjectNode minimums = response.putObject("minFlightMinutesByCarrier");
+        result.getMapMinTimeBetweenOriginDist().forEach((carrier, duration) ->
+                minimums.put(String.valueOf(carrier), duration.toMinutes()));
+        if (result.getMapDurationStatsByCarrier() != null) {
+            ObjectNode statistics = response.putObject("durationStatsByCarrier");
+            result.getMapDurationStatsByCarrier().forEach((carrier, stats) -> {
+                ObjectNode carrierStats = statistics.putObject(String.valueOf(carrier));
+                carrierStats.put("count", stats.getCount());
+                carrierStats.put("minMinutes", stats.getMin().toMinutes());
+                carrierStats.put("maxMinutes", stats.getMax().toMinutes());
+                carrierStats.put("meanMinutes", stats.getMean().toMinutes());
+                carrierStats.put("p50Minutes", stats.getP50().toMinutes());
+                carrierStats.put("p95Minutes", stats.getP95().toMinutes());
+            });
+        }
+        return mapper.writeValueAsBytes(response);
+    }
+
+    private void sendFailure(HttpExchange exchange, Throwable error) throws IOException {
+        Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+        if (cause instanceof EmptyRouteException) {
+            sendError(exchange, 404, "Билеты маршрута не найдены");
+        } else if (cause instanceof RejectedExecutionException) {
+            sendError(exchange, 503, "Сервер перегружен, повторите запрос позже");
+        } else {
+            log.error("Ошибка анализа билетов", cause);
+            sendError(exchange, 500, "Ошибка анализа билетов");
+        }
+    }
+
+    private void sendError(HttpExchange exchange, int status, String message) throws IOException {
+        ObjectNode response = mapper.createObjectNode();
+        response.put("error", message);
+        send(exchange, status, "application/json", mapper.writeValueAsBytes(response));
+    }
+
+    /**
+     * Отправляет ошибку, если заголовки ответа еще не отправлены, не пробрасывая ошибки отправки
+     */
+    private void sendQuietly(HttpExchange exchange, int status, String message) {
+        if (exchange.getResponseCode() != -1) {
+            return;
+        }
+        try {
+            sendError(exchange, status, message);
+        } catch (IOException | RuntimeException e) {
+            log.debug("Ошибка отправки ответа клиенту", e);
+        }
+    }
+
+    private static void send(HttpExchange exchange, int status, String contentType, byte[] body) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", contentType);
+        exchange.sendResponseHeaders(status, body.length);
+        try (OutputStream output = exchange.getResponseBody()) {
+            output.write(body);
+        }
+    }
+
+    private static Map<String, String> parseQuery(String query) {
+        Map<String, String> parameters = new HashMap<>();
+        if (query == null || query.isEmpty()) {
+            return parameters;
+        }
+        for (String pair : query.split("&")) {
+            int separator = pair.indexOf('=');
+            String name = separator < 0 ? pair : pair.substring(0, separator);
+            String value = separator < 0 ? "" : pair.substring(separator + 1);
+            parameters.put(URLDecoder.decode(name, StandardCharsets.UTF_8), URLDecoder.decode(value, StandardCharsets.UTF_8));
+        }
+        return parameters;
+    }
+
+    private static boolean isReadableFile(String path) {
+        try {
+            Path file = Path.of(path);
+            return Files.isRegularFile(file) && Files.isReadable(file);
+        } catch (InvalidPathException e) {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package ru.anikeev.tickets.services;
+
+import ru.anikeev.tickets.dto.TicketDTO;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Асинхронный интерфейс анализа билетов для вызова из многих потоков.
+ * Анализ выполняется на выделенном ограниченном исполнителе,
+ * одинаковые одновременные запросы объединяются в один расчет.
+ */
+public interface AsyncTicketService {
+    /**
+     * Асинхронно анализирует билеты заданного в настройках маршрута
+     *
+     * @param path путь к JSON-файлу с билетами
+     * @return будущий результат анализа
+     */
+    CompletableFuture<TicketDTO> resultOfAnalysAsync(String path);
+
+    /**
+     * Асинхронно анализирует билеты заданного маршрута
+     *
+     * @param path путь к JSON-файлу с билетами
+     * @param origin код аэропорта отправления
+     * @param destination код аэропорта назначения
+     * @return будущий результат анализа
+     */
+    CompletableFuture<TicketDTO> resultOfAnalysAsync(String path, String origin, String destination);
+}
@@ -0,0 +1,13 @@
+package ru.anikeev.tickets.services;
+
+/**
+ * Исключение при анализе маршрута, для которого не найдено ни одного билета:
+ * средняя цена и медиана для пустого маршрута не определены.
+ * Наследует ArithmeticException, которое выбрасывалось при делении на количество билетов,
+ * поэтому вызывающий код, обрабатывавший его, продолжает работать.
+ */
+public class EmptyRouteException extends ArithmeticException {
+    public EmptyRouteException(String origin, String destination) {
+        super("Билеты маршрута " + origin + " -> " + destination + " не найдены");
+    }
+}
@@ -0,0 +1,21 @@
+package ru.anikeev.tickets.services;
+
+import java.util.List;
+import java.util.stream.Collector;
+
+/**
+ * Стратегия выполнения расчетов по спискам билетов.
+ * Определяет, выполнять ли свертку последовательно или параллельно и на каком пуле потоков.
+ */
+public interface ExecutionStrategy {
+    /**
+     * Выполняет свертку элементов списка коллектором
+     *
+     * @param items элементы для обработки
+     * @param collector коллектор, объединяющий частичные результаты при параллельном выполнении
+     * @param <T> тип элементов
+     * @param <R> тип результата
+     * @return результат свертки
+     */
+    <T, R> R collect(List<T> items, Collector<? super T, ?, R> collector);
+}
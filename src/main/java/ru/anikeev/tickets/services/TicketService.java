@@ -1,6 +1,15 @@
 package ru.anikeev.tickets.services;
 
+import ru.anikeev.tickets.dto.RouteKey;
 import ru.anikeev.tickets.dto.TicketDTO;
+import ru.anikeev.tickets.entities.TicketTable;
+import ru.anikeev.tickets.entities.TicketTableIndex;
+import ru.anikeev.tickets.services.analysis.IncrementalTicketAnalyzer;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 /**
  * Основной интерфейс сервиса для анализа билетов.
@@ -15,4 +24,107 @@ public interface TicketService {
      * @return DTO с результатами анализа
      */
     TicketDTO resultOfAnalys(String path) ;
+
+    /**
+     * Анализирует билеты заданного маршрута из JSON-файла и возвращает результаты
+     *
+     * @param path путь к JSON-файлу с билетами
+     * @param origin код аэропорта отправления
+     * @param destination код аэропорта назначения
+     * @return DTO с результатами анализа
+     */
+    TicketDTO resultOfAnalys(String path, String origin, String destination);
+
+    /**
+     * Анализирует билеты заданного в настройках маршрута из нескольких JSON-файлов
+     *
+     * @param locations пути к файлам, каталогам или шаблоны имен файлов
+     * @return DTO с результатами анализа по всем найденным файлам
+     */
+    TicketDTO resultOfAnalysFiles(List<String> locations);
+
+    /**
+     * Анализирует билеты заданного маршрута из нескольких JSON-файлов
+     *
+     * @param locations пути к файлам, каталогам или шаблоны имен файлов
+     * @param origin код аэропорта отправления
+     * @param destination код аэропорта назначения
+     * @return DTO с результатами анализа по всем найденным файлам
+     */
+    TicketDTO resultOfAnalysFiles(List<String> locations, String origin, String destination);
+
+    /**
+     * Анализирует билеты всех маршрутов JSON-файла за один проход
+     *
+     * @param path путь к JSON-файлу с билетами
+     * @return карта результатов анализа по маршрутам
+     */
+    Map<RouteKey, TicketDTO> resultOfAnalysByRoutes(String path);
+
+    /**
+     * Анализирует билеты заданных маршрутов JSON-файла за один проход
+     *
+     * @param path путь к JSON-файлу с билетами
+     * @param routes маршруты для анализа
+     * @return карта результатов анализа по маршрутам, в которых найдены билеты
+     */
+    Map<RouteKey, TicketDTO> resultOfAnalysByRoutes(String path, Set<RouteKey> routes);
+
+    /**
+     * Анализирует билеты из JSON-файла, используя их компактное представление
+     *
+     * @param path путь к JSON-файлу с билетами
+     * @return DTO с результатами анализа
+     */
+    TicketDTO resultOfCompactAnalys(String path);
+
+    /**
+     * Анализирует билеты, загруженные в колоночную таблицу
+     *
+     * @param table таблица билетов
+     * @return DTO с результатами анализа
+     */
+    TicketDTO resultOfTableAnalys(TicketTable table);
+
+    /**
+     * Анализирует билеты заданного в настройках маршрута по индексу таблицы
+     *
+     * @param index индекс таблицы билетов
+     * @return DTO с результатами анализа
+     */
+    TicketDTO resultOfIndexAnalys(TicketTableIndex index);
+
+    /**
+     * Анализирует билеты заданного маршрута по индексу таблицы без просмотра остальных строк
+     *
+     * @param index индекс таблицы билетов
+     * @param origin код аэропорта отправления
+     * @param destination код аэропорта назначения
+     * @return DTO с результатами анализа
+     */
+    TicketDTO resultOfIndexAnalys(TicketTableIndex index, String origin, String destination);
+
+    /**
+     * Анализирует билеты заданного маршрута с вылетом в заданном окне по индексу таблицы.
+     * Границы окна находятся двоичным поиском по времени вылета, строки дат не разбираются.
+     *
+     * @param index индекс таблицы билетов
+     * @param origin код аэропорта отправления
+     * @param destination код аэропорта назначения
+     * @param from начало окна вылета, включительно
+     * @param to конец окна вылета, не включительно
+     * @return DTO с результатами анализа
+     */
+    TicketDTO resultOfWindowAnalys(TicketTableIndex index, String origin, String destination,
+                                   LocalDateTime from, LocalDateTime to);
+
+    /**
+     * Создает анализатор заданного маршрута, который можно пополнять новыми билетами и файлами
+     * и запрашивать у него текущие результаты без полного пересчета
+     *
+     * @param origin код аэропорта отправления
+     * @param destination код аэропорта назначения
+     * @return пустой инкрементальный анализатор
+     */
+    IncrementalTicketAnalyzer createIncrementalAnalyzer(String origin, String destination);
 }
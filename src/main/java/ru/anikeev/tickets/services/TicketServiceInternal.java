@@ -1,6 +1,10 @@
 package ru.anikeev.tickets.services;
 
+import ru.anikeev.tickets.dto.DurationStats;
+import ru.anikeev.tickets.dto.TicketDTO;
+import ru.anikeev.tickets.entities.CompactTicket;
 import ru.anikeev.tickets.entities.Ticket;
+import ru.anikeev.tickets.entities.TicketTable;
 
 import java.math.BigDecimal;
 import java.time.Duration;
@@ -12,6 +16,13 @@ import java.util.Map;
  * Содержит дополнительные методы для внутренней обработки данных.
  */
 public interface TicketServiceInternal extends TicketService{
+    /**
+     * Анализирует загруженный список билетов заданного в настройках маршрута за один проход
+     *
+     * @param tickets полный список билетов
+     * @return DTO с результатами анализа
+     */
+    TicketDTO analyseTickets(List<Ticket> tickets);
     /**
      * Находит разницу между средней ценой и медианой
      *
@@ -26,6 +37,14 @@ public interface TicketServiceInternal extends TicketService{
      * @return карта с минимальным временем полета по перевозчикам
      */
     Map<String, Duration> findMinTimeOfFlightBetweenOriginAndDistin(List<Ticket> tickets);
+    /**
+     * Находит статистику времени полета для каждого перевозчика:
+     * количество, минимум, максимум, среднее, p50 и p95
+     *
+     * @param tickets список билетов для анализа
+     * @return карта со статистикой времени полета по перевозчикам
+     */
+    Map<String, DurationStats> findDurationStatsBetweenOriginAndDistin(List<Ticket> tickets);
     /**
      * Вычисляет продолжительность полета по билету
      *
@@ -62,6 +81,35 @@ public interface TicketServiceInternal extends TicketService{
      * @return медианное значение цен
      */
     BigDecimal calculateMediana(List<BigDecimal> prices);
+    /**
+     * Фильтрует компактные билеты по заданным аэропортам отправления и назначения
+     *
+     * @param tickets полный список компактных билетов
+     * @return отфильтрованный список компактных билетов
+     */
+    List<CompactTicket> filterCompactOriginToDestination(List<CompactTicket> tickets);
+    /**
+     * Находит разницу между средней ценой и медианой по компактным билетам
+     *
+     * @param tickets список компактных билетов для анализа
+     * @return разница между средней ценой и медианой
+     */
+    BigDecimal findDifferrenceBetwenAverageAndMedianCompact(List<CompactTicket> tickets);
+    /**
+     * Находит строки таблицы с билетами по заданным аэропортам отправления и назначения
+     *
+     * @param table таблица билетов
+     * @return номера подходящих строк таблицы
+     */
+    int[] filterTableOriginToDestination(TicketTable table);
+    /**
+     * Находит разницу между средней ценой и медианой по строкам таблицы
+     *
+     * @param table таблица билетов
+     * @param rows номера строк для анализа
+     * @return разница между средней ценой и медианой
+     */
+    BigDecimal findDifferrenceBetwenAverageAndMedianTable(TicketTable table, int[] rows);
 
 
 
@@ -0,0 +1,86 @@
+package ru.anikeev.tickets.services.analysis;
+
+import ru.anikeev.tickets.dto.TicketDTO;
+import ru.anikeev.tickets.entities.CompactTicket;
+import ru.anikeev.tickets.repositories.JsonReader;
+import ru.anikeev.tickets.services.EmptyRouteException;
+
+import java.math.BigDecimal;
+
+/**
+ * Анализатор маршрута с накапливаемым состоянием для непрерывно поступающих билетов.
+ * Новые билеты и файлы учитываются инкрементально: средняя цена ведется через сумму
+ * и количество, медиана - через две кучи, время полета - через статистику
+ * по авиакомпаниям. Текущий результат доступен в любой момент без пересчета.
+ * Методы синхронизированы, поэтому один анализатор можно пополнять из разных потоков.
+ */
+public class IncrementalTicketAnalyzer {
+    private final JsonReader jsonReader;
+    private final String origin;
+    private final String destination;
+
+    private final PriceSum sum = new PriceSum();
+    private final StreamingMedian median = new StreamingMedian();
+    private final CarrierDurationStats durations = new CarrierDurationStats();
+
+    public IncrementalTicketAnalyzer(JsonReader jsonReader, String origin, String destination) {
+        this.jsonReader = jsonReader;
+        this.origin = origin;
+        this.destination = destination;
+    }
+
+    /**
+     * Учитывает билет, если он относится к маршруту анализатора
+     *
+     * @param ticket компактный билет
+     * @return true если билет учтен
+     */
+    public synchronized boolean add(CompactTicket ticket) {
+        if (!origin.equals(ticket.origin()) || !destination.equals(ticket.destination())) {
+            return false;
+        }
+        sum.addCents(ticket.priceCents());
+        median.add(ticket.priceCents());
+        durations.record(ticket.carrier(), ticket.durationMinutes());
+        return true;
+    }
+
+    /**
+     * Учитывает билеты маршрута из очередного JSON-файла.
+     * Билеты других маршрутов отбрасываются читателем до полного разбора и валидации.
+     * Блокировка берется на каждый билет, поэтому результаты можно запрашивать и во время чтения файла.
+     *
+     * @param path путь к JSON-файлу с билетами
+     */
+    public void addFile(String path) {
+        jsonReader.readCompactRouteByPath(path, origin, destination, this::add);
+    }
+
+    /**
+     * @return количество учтенных билетов маршрута
+     */
+    public synchronized long getCount() {
+        return median.size();
+    }
+
+    /**
+     * Возвращает результаты анализа по всем учтенным билетам.
+     * Средняя и медиана берутся из накопленного состояния за O(1),
+     * показатели времени полета строятся за O(количество авиакомпаний):
+     * перцентили пересчитываются только для авиакомпаний с новыми билетами.
+     *
+     * @return DTO с результатами анализа
+     * @throws EmptyRouteException если ни один билет маршрута еще не учтен
+     */
+    public synchronized TicketDTO snapshot() {
+        if (median.size() == 0) {
+            throw new EmptyRouteException(origin, destination);
+        }
+        BigDecimal average = sum.average(median.size());
+        return TicketDTO.builder()
+                .differenceBetweenAverageAndMedianPrice(average.subtract(median.median()))
+                .mapMinTimeBetweenOriginDist(durations.minDurations())
+                .mapDurationStatsByCarrier(durations.statistics())
+                .build();
+    }
+}
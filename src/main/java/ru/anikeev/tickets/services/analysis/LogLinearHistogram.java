@@ -0,0 +1,166 @@
+package ru.anikeev.tickets.services.analysis;
+
+import java.util.Arrays;
+
+/**
+ * Гистограмма неотрицательных целых значений с ограниченной относительной погрешностью
+ * (логарифмически-линейные корзины по образцу HdrHistogram).
+ * Значения делятся на диапазоны между степенями двойки, каждый диапазон - на одинаковое
+ * число корзин, поэтому погрешность оценки квантиля не превышает 10^-significantDigits
+ * от значения, а память не зависит от количества учтенных значений.
+ * Минимум, максимум, сумма и количество хранятся точно. Гистограммы с одинаковой
+ * точностью можно объединять, что позволяет считать их по частям в разных потоках.
+ */
+public class LogLinearHistogram {
+    private final int significantDigits;
+    private final int subBucketHalfCountMagnitude;
+    private final int subBucketHalfCount;
+    private final long subBucketMask;
+    private final int leadingZeroCountBase;
+
+    private long[] counts;
+    private long totalCount;
+    private long sum;
+    private long min = Long.MAX_VALUE;
+    private long max = Long.MIN_VALUE;
+
+    /**
+     * @param significantDigits количество значащих десятичных цифр точности, от 1 до 5
+     */
+    public LogLinearHistogram(int significantDigits) {
+        if (significantDigits < 1 || significantDigits > 5) {
+            throw new IllegalArgumentException("Точность гистограммы должна быть от 1 до 5 знаков");
+        }
+        this.significantDigits = significantDigits;
+        long largestSingleUnitResolution = 2 * (long) Math.pow(10, significantDigits);
+        int subBucketCountMagnitude = 64 - Long.numberOfLeadingZeros(largestSingleUnitResolution - 1);
+        this.subBucketHalfCountMagnitude = subBucketCountMagnitude - 1;
+        this.subBucketHalfCount = 1 << subBucketHalfCountMagnitude;
+        this.subBucketMask = (1L << subBucketCountMagnitude) - 1;
+        this.leadingZeroCountBase = 64 - subBucketCountMagnitude;
+        this.counts = new long[2 * subBucketHalfCount];
+    }
+
+    /**
+     * Учитывает значение
+     *
+     * @param value неотрицательное значение
+     */
+    public void record(long value) {
+        if (value < 0) {
+            throw new IllegalArgumentException("Значение гистограммы не может быть отрицательным: " + value);
+        }
+        int index = countsIndex(value);
+        if (index >= counts.length) {
+            counts = Arrays.copyOf(counts, Math.max(index + 1, counts.length + subBucketHalfCount));
+        }
+        counts[index]++;
+        totalCount++;
+        sum += value;
+        min = Math.min(min, value);
+        max = Math.max(max, value);
+    }
+
+    /**
+     * Добавляет к гистограмме значения другой гистограммы той же точности
+     *
+     * @param other гистограмма для объединения
+     */
+    public void merge(LogLinearHistogram other) {
+        if (other.significantDigits != significantDigits) {
+            throw new IllegalArgumentException("Объединять можно только гистограммы одинаковой точности");
+        }
+        if (other.counts.length > counts.length) {
+            counts = Arrays.copyOf(counts, other.counts.length);
+        }
+        for (int i = 0; i < other.counts.length; i++) {
+            counts[i] += other.counts[i];
+        }
+        totalCount += other.totalCount;
+        sum += other.sum;
+        min = Math.min(min, other.min);
+        max = Math.max(max, other.max);
+    }
+
+    /**
+     * Оценивает значение заданного ранга
+     *
+     * @param rank ранг значения от 0 до count() - 1
+     * @return середина корзины, в которую попадает значение, ограниченная точными минимумом и максимумом
+     */
+    public long valueAtRank(long rank) {
+        if (rank < 0 || rank >= totalCount) {
+            throw new IllegalArgumentException("Ранг вне диапазона: " + rank);
+        }
+        long seen = 0;
+        for (int index = 0; index < counts.length; index++) {
+            seen += counts[index];
+            if (seen > rank) {
+                long lowest = lowestValueAt(index);
+                long middle = lowest + (bucketWidthAt(index) - 1) / 2;
+                return Math.max(min, Math.min(max, middle));
+            }
+        }
+        return max;
+    }
+
+    /**
+     * Оценивает квантиль распределения
+     *
+     * @param quantile квантиль от 0 до 1
+     * @return оценка значения квантиля
+     */
+    public long valueAtQuantile(double quantile) {
+        long rank = (long) Math.ceil(quantile * totalCount) - 1;
+        return valueAtRank(Math.max(0, Math.min(totalCount - 1, rank)));
+    }
+
+    /**
+     * @return количество учтенных значений
+     */
+    public long count() {
+        return totalCount;
+    }
+
+    /**
+     * @return сумма учтенных значений
+     */
+    public long sum() {
+        return sum;
+    }
+
+    /**
+     * @return минимальное учтенное значение
+     */
+    public long min() {
+        return min;
+    }
+
+    /**
+     * @return максимальное учтенное значение
+     */
+    public long max() {
+        return max;
+    }
+
+    private int countsIndex(long value) {
+        int bucketIndex = leadingZeroCountBase - Long.numberOfLeadingZeros(value | subBucketMask);
+        int subBucketIndex = (int) (value >>> bucketIndex);
+        return ((bucketIndex + 1) << subBucketHalfCountMagnitude) + (subBucketIndex - subBucketHalfCount);
+    }
+
+    private long lowestValueAt(int index) {
+        int bucketIndex = (index >> subBucketHalfCountMagnitude) - 1;
+        int subBucketIndex = (index & (subBucketHalfCount - 1)) + subBucketHalfCount;
+        if (bucketIndex < 0) {
+            subBucketIndex -= subBucketHalfCount;
+            bucketIndex = 0;
+        }
+        return (long) subBucketIndex << bucketIndex;
+    }
+
+    private long bucketWidthAt(int index) {
+        int bucketIndex = Math.max(0, (index >> subBucketHalfCountMagnitude) - 1);
+        return 1L << bucketIndex;
+    }
+}
@@ -0,0 +1,232 @@
+package ru.anikeev.tickets.services.analysis;
+
+import ru.anikeev.tickets.entities.PriceCents;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+/**
+ * Поиск медианы цен в копейках за линейное время без полной сортировки.
+ * Последовательный вариант - интроселект: быстрый выбор с медианой трех в качестве опорного
+ * элемента и переходом на сортировку участка при слишком глубоком разбиении.
+ * Параллельный вариант - поразрядный выбор: гистограмма старших разрядов строится
+ * параллельно, после чего выбор продолжается только среди значений нужной корзины.
+ */
+public final class MedianSelector {
+    /**
+     * Размер участка, начиная с которого вместо разбиения используется сортировка вставками
+     */
+    private static final int INSERTION_SORT_THRESHOLD = 16;
+    /**
+     * Количество разрядов гистограммы параллельного выбора
+     */
+    private static final int RADIX_BITS = 16;
+    /**
+     * Размер части массива, обрабатываемой одной задачей параллельного выбора
+     */
+    private static final int PARALLEL_PART_SIZE = 1 << 16;
+
+    private MedianSelector() {
+    }
+
+    /**
+     * Вычисляет медиану цен в копейках последовательным интроселектом
+     *
+     * @param prices цены в копейках, массив переупорядочивается
+     * @return медиана с округлением HALF_UP до двух знаков
+     */
+    public static BigDecimal median(long[] prices) {
+        int size = prices.length;
+        int upper = size / 2;
+        select(prices, 0, size, upper);
+        if (size % 2 == 1) {
+            return PriceCents.toPrice(prices[upper]);
+        }
+        select(prices, 0, upper, upper - 1);
+        return middle(prices[upper - 1], prices[upper]);
+    }
+
+    /**
+     * Вычисляет медиану цен в копейках, используя параллельный поразрядный выбор
+     *
+     * @param prices цены в копейках, массив не изменяется
+     * @param pool пул потоков для параллельных проходов
+     * @return медиана с округлением HALF_UP до двух знаков
+     */
+    public static BigDecimal parallelMedian(long[] prices, ForkJoinPool pool) {
+        int size = prices.length;
+        int upper = size / 2;
+        if (size % 2 == 1) {
+            return PriceCents.toPrice(parallelSelect(prices, upper, pool));
+        }
+        return middle(parallelSelect(prices, upper - 1, pool), parallelSelect(prices, upper, pool));
+    }
+
+    private static BigDecimal middle(long lower, long upper) {
+        return PriceCents.toPrice(lower).add(PriceCents.toPrice(upper))
+                .divide(BigDecimal.valueOf(2), PriceCents.SCALE, RoundingMode.HALF_UP);
+    }
+
+    /**
+     * Переупорядочивает участок массива так, что на позиции k оказывается k-й по возрастанию элемент,
+     * слева от него - не большие, справа - не меньшие
+     *
+     * @param values массив значений
+     * @param from начало участка включительно
+     * @param to конец участка не включительно
+     * @param k искомая позиция
+     */
+    public static void select(long[] values, int from, int to, int k) {
+        int depthLimit = 2 * (32 - Integer.numberOfLeadingZeros(Math.max(1, to - from)));
+        int left = from;
+        int right = to - 1;
+        while (right - left >= INSERTION_SORT_THRESHOLD) {
+            if (depthLimit-- == 0) {
+                Arrays.sort(values, left, right + 1);
+                return;
+            }
+            long pivot = medianOfThree(values[left], values[left + (right - left) / 2], values[right]);
+            int lessEnd = left;
+            int greaterStart = right;
+            int i = left;
+            while (i <= greaterStart) {
+                long value = values[i];
+                if (value < pivot) {
+                    swap(values, i++, lessEnd++);
+                } else if (value > pivot) {
+                    swap(values, i, greaterStart--);
+                } else {
+                    i++;
+                }
+            }
+            if (k < lessEnd) {
+                right = lessEnd - 1;
+            } else if (k > greaterStart) {
+                left = greaterStart + 1;
+            } else {
+                return;
+            }
+        }
+        insertionSort(values, left, right);
+    }
+
+    /**
+     * Находит k-й по возрастанию элемент параллельным поразрядным выбором.
+     * На каждом шаге строится гистограмма по старшим разрядам смещения от минимума,
+     * выбирается корзина с искомым рангом и выбор продолжается среди ее значений.
+     *
+     * @param values массив значений, не изменяется
+     * @param k искомый ранг
+     * @param pool пул потоков для параллельных проходов
+     * @return k-й по возрастанию элемент
+     */
+    public static long parallelSelect(long[] values, int k, ForkJoinPool pool) {
+        long[] candidates = values;
+        int rank = k;
+        while (candidates.length > PARALLEL_PART_SIZE) {
+            long[] current = candidates;
+            int parts = (current.length + PARALLEL_PART_SIZE - 1) / PARALLEL_PART_SIZE;
+            long min = pool.submit(() -> IntStream.range(0, parts).parallel()
+                    .mapToLong(part -> partMin(current, part)).min().orElseThrow()).join();
+            long max = pool.submit(() -> IntStream.range(0, parts).parallel()
+                    .mapToLong(part -> partMax(current, part)).max().orElseThrow()).join();
+            if (min == max) {
+                return min;
+            }
+            int shift = Math.max(0, 64 - Long.numberOfLeadingZeros(max - min) - RADIX_BITS);
+
+            long[] histogram = pool.submit(() -> IntStream.range(0, parts).parallel()
+                    .mapToObj(part -> partHistogram(current, part, min, shift))
+                    .reduce(MedianSelector::addHistograms).orElseThrow()).join();
+            int bucket = 0;
+            while (rank >= histogram[bucket]) {
+                rank -= (int) histogram[bucket];
+                bucket++;
+            }
+            int selectedBucket = bucket;
+            candidates = pool.submit(() -> IntStream.range(0, parts).parallel()
+                    .mapToObj(part -> partBucket(current, part, min, shift, selectedBucket))
+                    .reduce(MedianSelector::concat).orElseThrow()).join();
+        }
+        long[] copy = candidates == values ? values.clone() : candidates;
+        select(copy, 0, copy.length, rank);
+        return copy[rank];
+    }
+
+    private static long partMin(long[] values, int part) {
+        long min = Long.MAX_VALUE;
+        for (int i = part * PARALLEL_PART_SIZE, end = partEnd(values, part); i < end; i++) {
+            min = Math.min(min, values[i]);
+        }
+        return min;
+    }
+
+    private static long partMax(long[] values, int part) {
+        long max = Long.MIN_VALUE;
+        for (int i = part * PARALLEL_PART_SIZE, end = partEnd(values, part); i < end; i++) {
+            max = Math.max(max, values[i]);
+        }
+        return max;
+    }
+
+    private static long[] partHistogram(long[] values, int part, long min, int shift) {
+        long[] histogram = new long[(1 << RADIX_BITS) + 1];
+        for (int i = part * PARALLEL_PART_SIZE, end = partEnd(values, part); i < end; i++) {
+            histogram[(int) ((values[i] - min) >>> shift)]++;
+        }
+        return histogram;
+    }
+
+    private static long[] partBucket(long[] values, int part, long min, int shift, int bucket) {
+        long[] selected = new long[partEnd(values, part) - part * PARALLEL_PART_SIZE];
+        int count = 0;
+        for (int i = part * PARALLEL_PART_SIZE, end = partEnd(values, part); i < end; i++) {
+            if ((int) ((values[i] - min) >>> shift) == bucket) {
+                selected[count++] = values[i];
+            }
+        }
+        return Arrays.copyOf(selected, count);
+    }
+
+    private static int partEnd(long[] values, int part) {
+        return Math.min(values.length, (part + 1) * PARALLEL_PART_SIZE);
+    }
+
+    private static long[] addHistograms(long[] first, long[] second) {
+        for (int i = 0; i < first.length; i++) {
+            first[i] += second[i];
+        }
+        return first;
+    }
+
+    private static long[] concat(long[] first, long[] second) {
+        long[] result = Arrays.copyOf(first, first.length + second.length);
+        System.arraycopy(second, 0, result, first.length, second.length);
+        return result;
+    }
+
+    private static long medianOfThree(long a, long b, long c) {
+        return Math.max(Math.min(a, b), Math.min(Math.max(a, b), c));
+    }
+
+    private static void insertionSort(long[] values, int left, int right) {
+        for (int i = left + 1; i <= right; i++) {
+            long value = values[i];
+            int j = i - 1;
+            while (j >= left && values[j] > value) {
+                values[j + 1] = values[j];
+                j--;
+            }
+            values[j + 1] = value;
+        }
+    }
+
+    private static void swap(long[] values, int i, int j) {
+        long value = values[i];
+        values[i] = values[j];
+        values[j] = value;
+    }
+}
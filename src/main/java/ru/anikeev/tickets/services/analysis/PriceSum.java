@@ -0,0 +1,99 @@
+package ru.anikeev.tickets.services.analysis;
+
+import ru.anikeev.tickets.entities.PriceCents;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Точная сумма цен в фиксированной точке.
+ * Пока цены представимы в копейках и сумма помещается в long, она хранится целым числом
+ * и складывается без создания объектов. При переполнении или цене с большим числом знаков
+ * после запятой сумма переходит на BigDecimal. Средняя цена в обоих режимах совпадает
+ * с делением суммы BigDecimal с округлением HALF_UP до двух знаков.
+ */
+public class PriceSum {
+    private long cents;
+    private BigDecimal exact;
+
+    /**
+     * Добавляет цену
+     *
+     * @param price цена билета
+     */
+    public void add(BigDecimal price) {
+        if (exact == null) {
+            long value = PriceCents.toCentsOrNotRepresentable(price);
+            if (value != PriceCents.NOT_REPRESENTABLE && tryAddCents(value)) {
+                return;
+            }
+            exact = PriceCents.toPrice(cents);
+        }
+        exact = exact.add(price);
+    }
+
+    /**
+     * Добавляет цену в копейках
+     *
+     * @param value цена в копейках
+     */
+    public void addCents(long value) {
+        if (exact == null) {
+            if (tryAddCents(value)) {
+                return;
+            }
+            exact = PriceCents.toPrice(cents);
+        }
+        exact = exact.add(PriceCents.toPrice(value));
+    }
+
+    /**
+     * Добавляет другую сумму
+     *
+     * @param other сумма для объединения
+     */
+    public void merge(PriceSum other) {
+        if (other.exact == null) {
+            addCents(other.cents);
+        } else {
+            exact = total().add(other.exact);
+        }
+    }
+
+    /**
+     * @return true если сумма хранится в копейках без перехода на BigDecimal
+     */
+    public boolean isFixedPoint() {
+        return exact == null;
+    }
+
+    /**
+     * @return сумма цен
+     */
+    public BigDecimal total() {
+        return exact == null ? PriceCents.toPrice(cents) : exact;
+    }
+
+    /**
+     * Вычисляет среднюю цену
+     *
+     * @param count количество цен
+     * @return средняя цена с двумя знаками после запятой
+     * @throws ArithmeticException если count равен нулю
+     */
+    public BigDecimal average(long count) {
+        if (exact == null) {
+            return PriceCents.toPrice(PriceCents.divideHalfUp(cents, count));
+        }
+        return exact.divide(BigDecimal.valueOf(count), PriceCents.SCALE, RoundingMode.HALF_UP);
+    }
+
+    private boolean tryAddCents(long value) {
+        long result = cents + value;
+        if (((cents ^ result) & (value ^ result)) < 0) {
+            return false;
+        }
+        cents = result;
+        return true;
+    }
+}
@@ -0,0 +1,119 @@
+package ru.anikeev.tickets.services.analysis;
+
+import ru.anikeev.tickets.entities.PriceCents;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Arrays;
+
+/**
+ * Медиана цен в копейках для постоянно пополняемого набора значений.
+ * Значения хранятся в двух кучах на примитивных массивах: максимальной для нижней половины
+ * и минимальной для верхней. Добавление выполняется за O(log n), медиана доступна за O(1).
+ */
+public class StreamingMedian {
+    private final LongHeap lower = new LongHeap(true);
+    private final LongHeap upper = new LongHeap(false);
+
+    /**
+     * Добавляет цену
+     *
+     * @param cents цена в копейках
+     */
+    public void add(long cents) {
+        if (lower.size() == 0 || cents <= lower.peek()) {
+            lower.push(cents);
+        } else {
+            upper.push(cents);
+        }
+        if (lower.size() > upper.size() + 1) {
+            upper.push(lower.pop());
+        } else if (upper.size() > lower.size()) {
+            lower.push(upper.pop());
+        }
+    }
+
+    /**
+     * @return количество добавленных цен
+     */
+    public int size() {
+        return lower.size() + upper.size();
+    }
+
+    /**
+     * Возвращает медиану добавленных цен
+     *
+     * @return медиана с округлением HALF_UP до двух знаков
+     */
+    public BigDecimal median() {
+        if (lower.size() > upper.size()) {
+            return PriceCents.toPrice(lower.peek());
+        }
+        return PriceCents.toPrice(lower.peek()).add(PriceCents.toPrice(upper.peek()))
+                .divide(BigDecimal.valueOf(2), PriceCents.SCALE, RoundingMode.HALF_UP);
+    }
+
+    /**
+     * Двоичная куча значений long без упаковки в объекты
+     */
+    private static final class LongHeap {
+        private final boolean max;
+        private long[] values = new long[16];
+        private int size;
+
+        private LongHeap(boolean max) {
+            this.max = max;
+        }
+
+        int size() {
+            return size;
+        }
+
+        long peek() {
+            if (size == 0) {
+                throw new IllegalStateException("Нет значений для расчета медианы");
+            }
+            return values[0];
+        }
+
+        void push(long value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size << 1);
+            }
+            int i = size++;
+            while (i > 0) {
+                int parent = (i - 1) >>> 1;
+                if (!before(value, values[parent])) {
+                    break;
+                }
+                values[i] = values[parent];
+                i = parent;
+            }
+            values[i] = value;
+        }
+
+        long pop() {
+            long top = values[0];
+            long last = values[--size];
+            int i = 0;
+            int half = size >>> 1;
+            while (i < half) {
+                int child = 2 * i + 1;
+                if (child + 1 < size && before(values[child + 1], values[child])) {
+                    child++;
+                }
+                if (!before(values[child], last)) {
+                    break;
+                }
+                values[i] = values[child];
+                i = child;
+            }
+            values[i] = last;
+            return top;
+        }
+
+        private boolean before(long a, long b) {
+            return max ? a > b : a < b;
+        }
+    }
+}
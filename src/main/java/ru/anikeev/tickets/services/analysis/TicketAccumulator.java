@@ -0,0 +1,191 @@
+package ru.anikeev.tickets.services.analysis;
+
+import ru.anikeev.tickets.entities.PriceCents;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Инкрементальный агрегатор показателей по билетам маршрута.
+ * Накапливает сумму и количество цен, цены для расчета медианы
+ * и статистику времени полета по каждой авиакомпании,
+ * не храня сами объекты билетов.
+ * Сумма и цены хранятся в копейках в примитивных типах; только если цену нельзя
+ * точно выразить в копейках, цены сохраняются как BigDecimal.
+ * В приближенном режиме цены не сохраняются, а учитываются в гистограмме
+ * с ограниченной относительной погрешностью, и память не зависит от количества билетов.
+ * Агрегаторы, заполненные в разных потоках, объединяются методом merge.
+ */
+public class TicketAccumulator {
+    private final PriceSum sum = new PriceSum();
+    private long count;
+    private long[] pricesInCents;
+    private List<BigDecimal> prices;
+    private final LogLinearHistogram priceHistogram;
+    private final CarrierDurationStats durations = new CarrierDurationStats();
+
+    /**
+     * Создает агрегатор с точным расчетом медианы
+     */
+    public TicketAccumulator() {
+        this.pricesInCents = new long[16];
+        this.priceHistogram = null;
+    }
+
+    /**
+     * Создает агрегатор с приближенным расчетом медианы
+     *
+     * @param significantDigits количество значащих цифр точности медианы, от 1 до 5
+     */
+    public TicketAccumulator(int significantDigits) {
+        this.priceHistogram = new LogLinearHistogram(significantDigits);
+    }
+
+    /**
+     * Учитывает очередной билет маршрута
+     *
+     * @param price стоимость билета
+     * @param carrier код авиакомпании
+     * @param duration продолжительность полета
+     */
+    public void add(BigDecimal price, String carrier, Duration duration) {
+        sum.add(price);
+        if (priceHistogram != null) {
+            priceHistogram.record(price.setScale(PriceCents.SCALE, RoundingMode.HALF_UP).unscaledValue().longValue());
+        } else if (prices == null) {
+            long cents = PriceCents.toCentsOrNotRepresentable(price);
+            if (cents != PriceCents.NOT_REPRESENTABLE) {
+                appendCents((int) count, cents);
+            } else {
+                inflatePrices();
+                prices.add(price);
+            }
+        } else {
+            prices.add(price);
+        }
+        count++;
+        durations.record(carrier, duration.toMinutes());
+    }
+
+    /**
+     * Добавляет показатели другого агрегатора того же режима
+     *
+     * @param other агрегатор для объединения
+     */
+    public void merge(TicketAccumulator other) {
+        if (other.isApproximate() != isApproximate()) {
+            throw new IllegalArgumentException("Объединять можно только агрегаторы одного режима");
+        }
+        sum.merge(other.sum);
+        if (priceHistogram != null) {
+            priceHistogram.merge(other.priceHistogram);
+        } else if (prices == null && other.prices == null) {
+            for (int i = 0; i < other.count; i++) {
+                appendCents((int) (count + i), other.pricesInCents[i]);
+            }
+        } else {
+            inflatePrices();
+            prices.addAll(other.getPrices());
+        }
+        count += other.count;
+        durations.merge(other.durations);
+    }
+
+    /**
+     * Вычисляет среднюю цену учтенных билетов
+     *
+     * @return среднее значение цен
+     */
+    public BigDecimal average() {
+        return sum.average(count);
+    }
+
+    /**
+     * @return true если медиана рассчитывается приближенно по гистограмме
+     */
+    public boolean isApproximate() {
+        return priceHistogram != null;
+    }
+
+    /**
+     * Оценивает медиану цен по гистограмме приближенного режима
+     *
+     * @return приближенное значение медианы
+     */
+    public BigDecimal approximateMedian() {
+        long upper = priceHistogram.valueAtRank(count / 2);
+        if (count % 2 == 1) {
+            return PriceCents.toPrice(upper);
+        }
+        return PriceCents.toPrice(priceHistogram.valueAtRank(count / 2 - 1)).add(PriceCents.toPrice(upper))
+                .divide(BigDecimal.valueOf(2), PriceCents.SCALE, RoundingMode.HALF_UP);
+    }
+
+    /**
+     * @return копия цен учтенных билетов в копейках или null, если цены хранятся как BigDecimal
+     * или медиана рассчитывается приближенно
+     */
+    public long[] getPricesInCents() {
+        return priceHistogram == null && prices == null ? Arrays.copyOf(pricesInCents, (int) count) : null;
+    }
+
+    /**
+     * @return цены учтенных билетов в порядке поступления, в приближенном режиме список пуст
+     */
+    public List<BigDecimal> getPrices() {
+        if (priceHistogram != null) {
+            return List.of();
+        }
+        if (prices != null) {
+            return prices;
+        }
+        List<BigDecimal> result = new ArrayList<>((int) count);
+        for (int i = 0; i < count; i++) {
+            result.add(PriceCents.toPrice(pricesInCents[i]));
+        }
+        return result;
+    }
+
+    /**
+     * @return количество учтенных билетов
+     */
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * @return карта где ключ - код авиакомпании, значение - минимальное время полета
+     */
+    public Map<String, Duration> getMinDurationByCarrier() {
+        return durations.minDurations();
+    }
+
+    /**
+     * @return статистика времени полета по авиакомпаниям
+     */
+    public CarrierDurationStats getDurationStats() {
+        return durations;
+    }
+
+    private void appendCents(int index, long cents) {
+        if (index == pricesInCents.length) {
+            pricesInCents = Arrays.copyOf(pricesInCents, index + (index >> 1));
+        }
+        pricesInCents[index] = cents;
+    }
+
+    /**
+     * Переводит накопленные цены в BigDecimal, когда очередную цену нельзя выразить в копейках
+     */
+    private void inflatePrices() {
+        if (prices == null) {
+            prices = getPrices();
+            pricesInCents = null;
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package ru.anikeev.tickets.services.impl;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import ru.anikeev.tickets.dto.TicketDTO;
+import ru.anikeev.tickets.services.AsyncTicketService;
+import ru.anikeev.tickets.services.TicketService;
+
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Реализация асинхронного сервиса анализа билетов.
+ * Запросы выполняются на исполнителе ticketsAnalysisExecutor через основной сервис,
+ * поэтому результаты кэшируются так же, как при синхронном вызове.
+ * Количество расчетов в работе ограничено параметром analysis.max.in.flight:
+ * при его достижении вызывающий поток не блокируется, а сразу получает результат,
+ * завершенный RejectedExecutionException (обратное давление без ожидания).
+ * Пока расчет для пути и маршрута не завершен, повторные запросы получают его результат
+ * и не запускают новый разбор файла. Каждый вызывающий получает собственную копию результата,
+ * поэтому изменение результата одним из них не видно остальным.
+ */
+@Service
+public class AsyncTicketServiceImpl implements AsyncTicketService {
+    private final TicketService ticketService;
+    private final ExecutorService executor;
+    private final String airportOrigin;
+    private final String airportDestination;
+    private final Semaphore permits;
+    private final ConcurrentHashMap<RequestKey, CompletableFuture<TicketDTO>> inFlight = new ConcurrentHashMap<>();
+    private final AtomicLong coalescedCount = new AtomicLong();
+
+    public AsyncTicketServiceImpl(TicketService ticketService,
+                                  @Qualifier("ticketsAnalysisExecutor") ExecutorService executor,
+                                  @Value("${airport.origin}") String airportOrigin,
+                                  @Value("${airport.destination}") String airportDestination,
+                                  @Value("${analysis.max.in.flight:64}") int maxInFlight) {
+        this.ticketService = ticketService;
+        this.executor = executor;
+        this.airportOrigin = airportOrigin;
+        this.airportDestination = airportDestination;
+        this.permits = new Semaphore(Math.max(1, maxInFlight));
+    }
+
+    /**
+     * Ключ запроса: нормализованный путь к файлу и маршрут
+     */
+    private record RequestKey(String path, String origin, String destination) {
+    }
+
+    @Override
+    public CompletableFuture<TicketDTO> resultOfAnalysAsync(String path) {
+        return resultOfAnalysAsync(path, airportOrigin, airportDestination);
+    }
+
+    /**
+     * Асинхронно анализирует билеты маршрута, присоединяясь к уже идущему
+     * расчету для того же файла и маршрута
+     *
+     * @param path путь к JSON-файлу с билетами
+     * @param origin код аэропорта отправления
+     * @param destination код аэропорта назначения
+     * @return будущий результат анализа
+     */
+    @Override
+    public CompletableFuture<TicketDTO> resultOfAnalysAsync(String path, String origin, String destination) {
+        RequestKey key = new RequestKey(normalize(path), origin, destination);
+        CompletableFuture<TicketDTO> future = new CompletableFuture<>();
+        CompletableFuture<TicketDTO> running = inFlight.putIfAbsent(key, future);
+        if (running != null) {
+            coalescedCount.incrementAndGet();
+            return running.thenApply(CachingTicketService::copyOf);
+        }
+
+        if (!permits.tryAcquire()) {
+            inFlight.remove(key, future);
+            future.completeExceptionally(new RejectedExecutionException("Превышено количество расчетов в работе"));
+            return future.copy();
+        }
+
+        try {
+            executor.execute(() -> {
+                try {
+                    TicketDTO result = ticketService.resultOfAnalys(path, origin, destination);
+                    finish(key, future);
+                    future.complete(result);
+                } catch (RuntimeException | Error e) {
+                    finish(key, future);
+                    future.completeExceptionally(e);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            finish(key, future);
+            future.completeExceptionally(e);
+        }
+        return future.thenApply(CachingTicketService::copyOf);
+    }
+
+    /**
+     * @return количество запросов, присоединенных к уже идущему расчету
+     */
+    public long getCoalescedCount() {
+        return coalescedCount.get();
+    }
+
+    /**
+     * @return количество расчетов в работе
+     */
+    public int getInFlightCount() {
+        return inFlight.size();
+    }
+
+    private void finish(RequestKey key, CompletableFuture<TicketDTO> future) {
+        inFlight.remove(key, future);
+        permits.release();
+    }
+
+    private static String normalize(String path) {
+        try {
+            return Path.of(path).toAbsolutePath().normalize().toString();
+        } catch (InvalidPathException | NullPointerException e) {
+            return String.valueOf(path);
+        }
+    }
+}
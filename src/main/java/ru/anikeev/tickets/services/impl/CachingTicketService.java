@@ -0,0 +1,290 @@
+package ru.anikeev.tickets.services.impl;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Primary;
+import org.springframework.stereotype.Service;
+import ru.anikeev.tickets.dto.DurationStats;
+import ru.anikeev.tickets.dto.RouteKey;
+import ru.anikeev.tickets.dto.TicketDTO;
+import ru.anikeev.tickets.entities.TicketTable;
+import ru.anikeev.tickets.entities.TicketTableIndex;
+import ru.anikeev.tickets.services.TicketService;
+import ru.anikeev.tickets.services.TicketServiceInternal;
+import ru.anikeev.tickets.services.analysis.IncrementalTicketAnalyzer;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.CRC32C;
+
+/**
+ * Кэширующая обертка над сервисом анализа билетов.
+ * Результаты resultOfAnalys хранятся по ключу из канонического пути к файлу и маршрута
+ * вместе с размером, временем изменения файла и контрольной суммой его первых и последних
+ * FINGERPRINT_BYTES байт. Если файл изменился, запись считается устаревшей и пересчитывается.
+ * Контрольная сумма замечает перезапись файла с тем же размером в пределах точности
+ * времени изменения файловой системы, не читая весь файл. Размер кэша ограничен параметром cache.max.size,
+ * при переполнении вытесняется давно не использованная запись (LRU).
+ * TicketDTO изменяем, поэтому в кэше хранится его копия с неизменяемыми картами,
+ * а каждый вызывающий получает собственную копию: изменение результата одним вызывающим
+ * не затрагивает кэш и других вызывающих.
+ * Остальные методы передаются основному сервису без кэширования.
+ */
+@Service
+@Primary
+public class CachingTicketService implements TicketService {
+    /**
+     * Количество байт начала и конца файла, по которым считается контрольная сумма
+     */
+    private static final int FINGERPRINT_BYTES = 4 * 1024;
+
+    private final TicketServiceInternal ticketService;
+    private final String airportOrigin;
+    private final String airportDestination;
+    private final Map<CacheKey, CacheEntry> cache;
+    private final AtomicLong hitCount = new AtomicLong();
+    private final AtomicLong missCount = new AtomicLong();
+
+    public CachingTicketService(TicketServiceInternal ticketService,
+                                @Value("${airport.origin}") String airportOrigin,
+                                @Value("${airport.destination}") String airportDestination,
+                                @Value("${cache.max.size:128}") int maxSize) {
+        this.ticketService = ticketService;
+        this.airportOrigin = airportOrigin;
+        this.airportDestination = airportDestination;
+        this.cache = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<CacheKey, CacheEntry> eldest) {
+                return size() > maxSize;
+            }
+        };
+    }
+
+    /**
+     * Ключ кэша: канонический путь к файлу и маршрут
+     */
+    private record CacheKey(Path path, String origin, String destination) {
+    }
+
+    /**
+     * Запись кэша: версия файла, для которой посчитан результат, и сам результат
+     */
+    private record CacheEntry(long size, FileTime lastModified, Object fileKey, long fingerprint, TicketDTO result) {
+        boolean matches(BasicFileAttributes attributes, long currentFingerprint) {
+            return size == attributes.size()
+                    && lastModified.equals(attributes.lastModifiedTime())
+                    && Objects.equals(fileKey, attributes.fileKey())
+                    && fingerprint == currentFingerprint;
+        }
+    }
+
+    /**
+     * Возвращает результат анализа заданного в настройках маршрута из кэша или рассчитывает его
+     *
+     * @param path путь к JSON-файлу с билетами
+     * @return DTO с результатами анализа
+     */
+    @Override
+    public TicketDTO resultOfAnalys(String path) {
+        return resultOfAnalys(path, airportOrigin, airportDestination);
+    }
+
+    /**
+     * Возвращает результат анализа маршрута из кэша, если файл не изменился,
+     * иначе рассчитывает его и сохраняет в кэш
+     *
+     * @param path путь к JSON-файлу с билетами
+     * @param origin код аэропорта отправления
+     * @param destination код аэропорта назначения
+     * @return DTO с результатами анализа
+     */
+    @Override
+    public TicketDTO resultOfAnalys(String path, String origin, String destination) {
+        Path realPath;
+        BasicFileAttributes attributes;
+        long fingerprint;
+        try {
+            realPath = Path.of(path).toRealPath();
+            attributes = Files.readAttributes(realPath, BasicFileAttributes.class);
+            fingerprint = fingerprint(realPath, attributes.size());
+        } catch (IOException | RuntimeException e) {
+            missCount.incrementAndGet();
+            return ticketService.resultOfAnalys(path, origin, destination);
+        }
+
+        CacheKey key = new CacheKey(realPath, origin, destination);
+        synchronized (cache) {
+            CacheEntry entry = cache.get(key);
+            if (entry != null && entry.matches(attributes, fingerprint)) {
+                hitCount.incrementAndGet();
+                return copyOf(entry.result());
+            }
+        }
+
+        missCount.incrementAndGet();
+        TicketDTO result = ticketService.resultOfAnalys(path, origin, destination);
+        synchronized (cache) {
+            cache.put(key, new CacheEntry(attributes.size(), attributes.lastModifiedTime(),
+                    attributes.fileKey(), fingerprint, copyOf(result)));
+        }
+        return result;
+    }
+
+    /**
+     * Считает контрольную сумму первых и последних FINGERPRINT_BYTES байт файла
+     *
+     * @param path путь к файлу
+     * @param size размер файла
+     * @return контрольная сумма CRC32C
+     * @throws IOException при ошибках чтения файла
+     */
+    private static long fingerprint(Path path, long size) throws IOException {
+        CRC32C checksum = new CRC32C();
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            ByteBuffer buffer = ByteBuffer.allocate(FINGERPRINT_BYTES);
+            readFully(channel, buffer, 0);
+            checksum.update(buffer.flip());
+            if (size > FINGERPRINT_BYTES) {
+                buffer.clear();
+                readFully(channel, buffer, Math.max(FINGERPRINT_BYTES, size - FINGERPRINT_BYTES));
+                checksum.update(buffer.flip());
+            }
+        }
+        return checksum.getValue();
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, position + buffer.position());
+            if (read < 0) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Копирует результат анализа с неизменяемыми картами и собственными объектами статистики.
+     * Используется также асинхронным сервисом, чтобы объединенные запросы не делили один результат.
+     *
+     * @param result результат анализа
+     * @return независимая копия результата
+     */
+    static TicketDTO copyOf(TicketDTO result) {
+        Map<String, DurationStats> statistics = null;
+        if (result.getMapDurationStatsByCarrier() != null) {
+            Map<String, DurationStats> copied = new HashMap<>();
+            result.getMapDurationStatsByCarrier().forEach((carrier, stats) -> copied.put(carrier, DurationStats.builder()
+                    .count(stats.getCount())
+                    .min(stats.getMin())
+                    .max(stats.getMax())
+                    .mean(stats.getMean())
+                    .p50(stats.getP50())
+                    .p95(stats.getP95())
+                    .build()));
+            statistics = Collections.unmodifiableMap(copied);
+        }
+        return TicketDTO.builder()
+                .differenceBetweenAverageAndMedianPrice(result.getDifferenceBetweenAverageAndMedianPrice())
+                .mapMinTimeBetweenOriginDist(result.getMapMinTimeBetweenOriginDist() == null
+                        ? null : Map.copyOf(result.getMapMinTimeBetweenOriginDist()))
+                .mapDurationStatsByCarrier(statistics)
+                .build();
+    }
+
+    @Override
+    public TicketDTO resultOfAnalysFiles(List<String> locations) {
+        return ticketService.resultOfAnalysFiles(locations);
+    }
+
+    @Override
+    public TicketDTO resultOfAnalysFiles(List<String> locations, String origin, String destination) {
+        return ticketService.resultOfAnalysFiles(locations, origin, destination);
+    }
+
+    @Override
+    public Map<RouteKey, TicketDTO> resultOfAnalysByRoutes(String path) {
+        return ticketService.resultOfAnalysByRoutes(path);
+    }
+
+    @Override
+    public Map<RouteKey, TicketDTO> resultOfAnalysByRoutes(String path, Set<RouteKey> routes) {
+        return ticketService.resultOfAnalysByRoutes(path, routes);
+    }
+
+    @Override
+    public TicketDTO resultOfCompactAnalys(String path) {
+        return ticketService.resultOfCompactAnalys(path);
+    }
+
+    @Override
+    public TicketDTO resultOfTableAnalys(TicketTable table) {
+        return ticketService.resultOfTableAnalys(table);
+    }
+
+    @Override
+    public TicketDTO resultOfIndexAnalys(TicketTableIndex index) {
+        return ticketService.resultOfIndexAnalys(index);
+    }
+
+    @Override
+    public TicketDTO resultOfIndexAnalys(TicketTableIndex index, String origin, String destination) {
+        return ticketService.resultOfIndexAnalys(index, origin, destination);
+    }
+
+    @Override
+    public TicketDTO resultOfWindowAnalys(TicketTableIndex index, String origin, String destination,
+                                          LocalDateTime from, LocalDateTime to) {
+        return ticketService.resultOfWindowAnalys(index, origin, destination, from, to);
+    }
+
+    @Override
+    public IncrementalTicketAnalyzer createIncrementalAnalyzer(String origin, String destination) {
+        return ticketService.createIncrementalAnalyzer(origin, destination);
+    }
+
+    /**
+     * Очищает кэш результатов
+     */
+    public void invalidateAll() {
+        synchronized (cache) {
+            cache.clear();
+        }
+    }
+
+    /**
+     * @return количество запросов, обслуженных из кэша
+     */
+    public long getHitCount() {
+        return hitCount.get();
+    }
+
+    /**
+     * @return количество запросов, потребовавших расчета
+     */
+    public long getMissCount() {
+        return missCount.get();
+    }
+
+    /**
+     * @return текущее количество записей в кэше
+     */
+    public int size() {
+        synchronized (cache) {
+            return cache.size();
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package ru.anikeev.tickets.services.impl;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import ru.anikeev.tickets.services.ExecutionStrategy;
+
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collector;
+
+/**
+ * Стратегия выполнения, выбирающая способ обработки по размеру списка.
+ * Списки меньше parallel.threshold обрабатываются последовательно в вызывающем потоке,
+ * так как накладные расходы на разделение задачи для них больше выигрыша.
+ * Большие списки обрабатываются параллельным потоком, запущенным внутри выделенного
+ * пула ticketsForkJoinPool (размер задается параметром tickets.parallelism),
+ * поэтому расчеты не занимают общий ForkJoinPool.commonPool().
+ */
+@Component
+public class SizeAwareExecutionStrategy implements ExecutionStrategy {
+    private final ForkJoinPool forkJoinPool;
+    private final int parallelThreshold;
+
+    public SizeAwareExecutionStrategy(@Qualifier("ticketsForkJoinPool") ForkJoinPool forkJoinPool,
+                                      @Value("${parallel.threshold:10000}") int parallelThreshold) {
+        this.forkJoinPool = forkJoinPool;
+        this.parallelThreshold = parallelThreshold;
+    }
+
+    @Override
+    public <T, R> R collect(List<T> items, Collector<? super T, ?, R> collector) {
+        if (items.size() < parallelThreshold || forkJoinPool.getParallelism() < 2) {
+            return items.stream().collect(collector);
+        }
+        // задачи параллельного потока выполняются в пуле, из потока которого запущена операция
+        return forkJoinPool.submit(() -> items.parallelStream().collect(collector)).join();
+    }
+}
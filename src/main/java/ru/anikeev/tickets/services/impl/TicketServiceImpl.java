@@ -3,65 +3,434 @@ package ru.anikeev.tickets.services.impl;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import ru.anikeev.tickets.dto.DurationStats;
+import ru.anikeev.tickets.dto.RouteKey;
 import ru.anikeev.tickets.dto.TicketDTO;
+import ru.anikeev.tickets.entities.CompactTicket;
+import ru.anikeev.tickets.entities.PriceCents;
+import ru.anikeev.tickets.entities.CodeDictionary;
 import ru.anikeev.tickets.entities.Ticket;
+import ru.anikeev.tickets.entities.TicketTable;
+import ru.anikeev.tickets.entities.TicketTableIndex;
+import ru.anikeev.tickets.metrics.TicketMetrics;
 import ru.anikeev.tickets.repositories.JsonReader;
+import ru.anikeev.tickets.repositories.imp.DateTimeCache;
+import ru.anikeev.tickets.services.EmptyRouteException;
+import ru.anikeev.tickets.services.ExecutionStrategy;
 import ru.anikeev.tickets.services.TicketServiceInternal;
+import ru.anikeev.tickets.services.analysis.CarrierDurationStats;
+import ru.anikeev.tickets.services.analysis.IncrementalTicketAnalyzer;
+import ru.anikeev.tickets.services.analysis.MedianSelector;
+import ru.anikeev.tickets.services.analysis.PriceSum;
+import ru.anikeev.tickets.services.analysis.TicketAccumulator;
 
 import java.math.BigDecimal;
 import java.math.RoundingMode;
 import java.time.Duration;
 import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
+import java.time.ZoneOffset;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collector;
 import java.util.stream.Collectors;
 
 /**
  * Основная реализация сервиса для анализа авиабилетов.
- * Выполняет чтение и фильтрацию билетов по указанным аэропортам,
- * расчет разницы между средней ценой и медианой,
+ * Выполняет чтение и фильтрацию билетов по указанным аэропортам, расчет разницы
+ * между средней ценой и медианой и минимального времени полета по перевозчикам.
+ * Время стадий фильтрации, расчета средней, медианы и минимального времени полета
+ * и количество билетов маршрута передаются в TicketMetrics. При потоковом анализе
+ * файла минимальное время полета и сумма цен накапливаются вместе с фильтрацией
+ * и учитываются в стадии filter.
  */
 @Service
 public class TicketServiceImpl implements TicketServiceInternal {
     private final JsonReader jsonReader;
     private final String airportOrigin;
     private final String airportDestination;
-    private final DateTimeFormatter dateTimeFormatter;
+    private final DateTimeCache dateTimeCache;
+    private final ForkJoinPool forkJoinPool;
+    private final int medianParallelThreshold;
+    private final int medianApproximateDigits;
+    private final int filesParallelism;
+    private final ExecutionStrategy executionStrategy;
+    private final TicketMetrics metrics;
 
     public TicketServiceImpl(JsonReader jsonReader,
                              @Value("${airport.origin}") String airportOrigin,
                              @Value("${airport.destination}") String airportDestination,
-                             @Qualifier("dateTimeFormatter") DateTimeFormatter dateTimeFormatter) {
+                             DateTimeCache dateTimeCache,
+                             @Qualifier("ticketsForkJoinPool") ForkJoinPool forkJoinPool,
+                             @Value("${median.parallel.threshold:1000000}") int medianParallelThreshold,
+                             @Value("${median.approximate.digits:0}") int medianApproximateDigits,
+                             @Value("${files.parallelism:0}") int filesParallelism,
+                             ExecutionStrategy executionStrategy,
+                             TicketMetrics metrics) {
         this.jsonReader = jsonReader;
         this.airportOrigin = airportOrigin;
         this.airportDestination = airportDestination;
-        this.dateTimeFormatter = dateTimeFormatter;
+        this.dateTimeCache = dateTimeCache;
+        this.forkJoinPool = forkJoinPool;
+        this.medianParallelThreshold = medianParallelThreshold;
+        this.medianApproximateDigits = medianApproximateDigits;
+        this.filesParallelism = filesParallelism;
+        this.executionStrategy = executionStrategy;
+        this.metrics = metrics;
     }
 
     /**
      * Основной метод анализа, возвращающий все рассчитанные показатели.
      * Включает разницу между средней ценой и медианой и минимальное время полета по авиакомпаниям.
+     * Билеты обрабатываются потоково: каждый валидный билет сразу проходит фильтр маршрута
+     * и учитывается в агрегаторе, список всех билетов файла не создается.
+     * Если задан параметр median.approximate.digits, медиана оценивается по гистограмме
+     * с заданной точностью и цены в памяти не хранятся.
      *
      * @param path путь к JSON-файлу с билетами
      * @return DTO с результатами анализа
      */
     @Override
     public TicketDTO resultOfAnalys(String path) {
-        List<Ticket> ticketList = filterOriginToDestination(
-                jsonReader.readJsonByPath(path)
-        );
+        return resultOfAnalys(path, airportOrigin, airportDestination);
+    }
+
+    /**
+     * Анализ билетов заданного маршрута с потоковой обработкой файла.
+     *
+     * @param path путь к JSON-файлу с билетами
+     * @param origin код аэропорта отправления
+     * @param destination код аэропорта назначения
+     * @return DTO с результатами анализа
+     */
+    @Override
+    public TicketDTO resultOfAnalys(String path, String origin, String destination) {
+        TicketAccumulator accumulator = newAccumulator();
+        addRouteTickets(path, origin, destination, accumulator);
+        return toTicketDTO(accumulator, origin, destination);
+    }
+
+    @Override
+    public TicketDTO resultOfAnalysFiles(List<String> locations) {
+        return resultOfAnalysFiles(locations, airportOrigin, airportDestination);
+    }
+
+    /**
+     * Анализ билетов маршрута из нескольких файлов.
+     * Файлы разбираются параллельно на ForkJoinPool: каждая задача берет очередной файл
+     * из общего списка и учитывает его билеты в своем агрегаторе, после чего агрегаторы
+     * задач объединяются. Количество одновременно разбираемых файлов задается параметром
+     * files.parallelism (0 - уровень параллелизма пула).
+     *
+     * @param locations пути к файлам, каталогам или шаблоны имен файлов
+     * @param origin код аэропорта отправления
+     * @param destination код аэропорта назначения
+     * @return DTO с результатами анализа по всем найденным файлам
+     */
+    @Override
+    public TicketDTO resultOfAnalysFiles(List<String> locations, String origin, String destination) {
+        List<String> files = locations.stream()
+                .flatMap(location -> jsonReader.resolveJsonFiles(location).stream())
+                .distinct()
+                .toList();
+        int parallelism = filesParallelism > 0 ? filesParallelism : forkJoinPool.getParallelism();
+        int workers = Math.min(files.size(), parallelism);
+        AtomicInteger nextFile = new AtomicInteger();
+
+        List<ForkJoinTask<TicketAccumulator>> tasks = new ArrayList<>(workers);
+        for (int worker = 0; worker < workers; worker++) {
+            tasks.add(forkJoinPool.submit(() -> {
+                TicketAccumulator accumulator = newAccumulator();
+                int index;
+                while ((index = nextFile.getAndIncrement()) < files.size()) {
+                    addRouteTickets(files.get(index), origin, destination, accumulator);
+                }
+                return accumulator;
+            }));
+        }
+
+        TicketAccumulator total = newAccumulator();
+        for (ForkJoinTask<TicketAccumulator> task : tasks) {
+            total.merge(task.join());
+        }
+        return toTicketDTO(total, origin, destination);
+    }
+
+    /**
+     * Читает файл и учитывает билеты маршрута в агрегаторе.
+     * Билеты других маршрутов отбрасываются читателем до полного разбора.
+     *
+     * @param path путь к JSON-файлу с билетами
+     * @param origin код аэропорта отправления
+     * @param destination код аэропорта назначения
+     * @param accumulator агрегатор билетов маршрута
+     */
+    private void addRouteTickets(String path, String origin, String destination, TicketAccumulator accumulator) {
+        long countBefore = accumulator.getCount();
+        long[] filterNanos = new long[1];
+        jsonReader.readRouteByPath(path, origin, destination, ticket -> {
+            long start = System.nanoTime();
+            accumulator.add(ticket.getPrice(), ticket.getCarrier(), calculateTicketDuration(ticket));
+            filterNanos[0] += System.nanoTime() - start;
+        });
+        metrics.record(TicketMetrics.Stage.FILTER, filterNanos[0]);
+        metrics.countMatched(accumulator.getCount() - countBefore);
+    }
+
+    /**
+     * Анализ всех маршрутов файла за один проход: билеты группируются по паре
+     * аэропортов отправления и назначения, для каждой пары ведется свой агрегатор.
+     *
+     * @param path путь к JSON-файлу с билетами
+     * @return карта результатов анализа по маршрутам
+     */
+    @Override
+    public Map<RouteKey, TicketDTO> resultOfAnalysByRoutes(String path) {
+        return resultOfAnalysByRoutes(path, null);
+    }
+
+    /**
+     * Анализ заданных маршрутов файла за один проход.
+     *
+     * @param path путь к JSON-файлу с билетами
+     * @param routes маршруты для анализа или null для всех маршрутов
+     * @return карта результатов анализа по маршрутам, в которых найдены билеты
+     */
+    @Override
+    public Map<RouteKey, TicketDTO> resultOfAnalysByRoutes(String path, Set<RouteKey> routes) {
+        Map<String, Map<String, TicketAccumulator>> accumulators = new HashMap<>();
+        if (routes != null) {
+            routes.forEach(route -> accumulators
+                    .computeIfAbsent(route.origin(), origin -> new HashMap<>())
+                    .put(route.destination(), newAccumulator()));
+        }
+
+        jsonReader.readJsonByPath(path, ticket -> {
+            Map<String, TicketAccumulator> byDestination = routes == null
+                    ? accumulators.computeIfAbsent(ticket.getOrigin(), origin -> new HashMap<>())
+                    : accumulators.get(ticket.getOrigin());
+            if (byDestination == null) {
+                return;
+            }
+            TicketAccumulator accumulator = routes == null
+                    ? byDestination.computeIfAbsent(ticket.getDestination(), destination -> newAccumulator())
+                    : byDestination.get(ticket.getDestination());
+            if (accumulator != null) {
+                accumulator.add(ticket.getPrice(), ticket.getCarrier(), calculateTicketDuration(ticket));
+            }
+        });
+
+        Map<RouteKey, TicketDTO> result = new HashMap<>();
+        accumulators.forEach((origin, byDestination) -> byDestination.forEach((destination, accumulator) -> {
+            metrics.countMatched(accumulator.getCount());
+            if (accumulator.getCount() > 0) {
+                result.put(new RouteKey(origin, destination), toTicketDTO(accumulator, origin, destination));
+            }
+        }));
+        return result;
+    }
+
+    /**
+     * Создает инкрементальный анализатор маршрута, читающий файлы через JsonReader.
+     *
+     * @param origin код аэропорта отправления
+     * @param destination код аэропорта назначения
+     * @return пустой инкрементальный анализатор
+     */
+    @Override
+    public IncrementalTicketAnalyzer createIncrementalAnalyzer(String origin, String destination) {
+        return new IncrementalTicketAnalyzer(jsonReader, origin, destination);
+    }
 
-        BigDecimal priceDifference = findDifferrenceBetwenAverageAndMedian(ticketList);
-        Map<String, Duration> mapOfCarrier = findMinTimeOfFlightBetweenOriginAndDistin(ticketList);
+    /**
+     * Создает агрегатор с точной или приближенной медианой в зависимости от настроек.
+     *
+     * @return новый агрегатор
+     */
+    private TicketAccumulator newAccumulator() {
+        return medianApproximateDigits > 0
+                ? new TicketAccumulator(medianApproximateDigits)
+                : new TicketAccumulator();
+    }
+
+    /**
+     * Формирует результаты анализа по накопленным показателям маршрута.
+     *
+     * @param accumulator агрегатор билетов маршрута
+     * @param origin код аэропорта отправления
+     * @param destination код аэропорта назначения
+     * @return DTO с результатами анализа
+     * @throws EmptyRouteException если билеты маршрута не найдены
+     */
+    private TicketDTO toTicketDTO(TicketAccumulator accumulator, String origin, String destination) {
+        if (accumulator.getCount() == 0) {
+            throw new EmptyRouteException(origin, destination);
+        }
+        BigDecimal average = metrics.time(TicketMetrics.Stage.AVERAGE, accumulator::average);
+        BigDecimal median;
+        if (accumulator.isApproximate()) {
+            median = metrics.time(TicketMetrics.Stage.MEDIAN, accumulator::approximateMedian);
+        } else {
+            long[] cents = accumulator.getPricesInCents();
+            median = cents != null
+                    ? metrics.time(TicketMetrics.Stage.MEDIAN, () -> medianOfCents(cents))
+                    : calculateMediana(accumulator.getPrices());
+        }
+        BigDecimal priceDifference = average.subtract(median);
+        CarrierDurationStats durations = accumulator.getDurationStats();
         return TicketDTO.builder()
                 .differenceBetweenAverageAndMedianPrice(priceDifference)
-                .mapMinTimeBetweenOriginDist(mapOfCarrier)
+                .mapMinTimeBetweenOriginDist(durations.minDurations())
+                .mapDurationStatsByCarrier(durations.statistics())
+                .build();
+    }
+
+    /**
+     * Анализ по компактному представлению билетов: даты разбираются один раз при чтении,
+     * а цены и продолжительности перелетов считаются в целых копейках и минутах.
+     *
+     * @param path путь к JSON-файлу с билетами
+     * @return DTO с результатами анализа
+     */
+    @Override
+    public TicketDTO resultOfCompactAnalys(String path) {
+        List<CompactTicket> ticketList = filterCompactOriginToDestination(
+                jsonReader.readCompactByPath(path)
+        );
+        if (ticketList.isEmpty()) {
+            throw new EmptyRouteException(airportOrigin, airportDestination);
+        }
+
+        CarrierDurationStats durations = metrics.time(TicketMetrics.Stage.MIN_DURATION,
+                () -> collectCompactDurations(ticketList));
+        return TicketDTO.builder()
+                .differenceBetweenAverageAndMedianPrice(findDifferrenceBetwenAverageAndMedianCompact(ticketList))
+                .mapMinTimeBetweenOriginDist(durations.minDurations())
+                .mapDurationStatsByCarrier(durations.statistics())
                 .build();
     }
 
+    /**
+     * Анализ билетов, загруженных в колоночную таблицу.
+     * Все расчеты выполняются циклами по примитивным колонкам таблицы.
+     *
+     * @param table таблица билетов
+     * @return DTO с результатами анализа
+     */
+    @Override
+    public TicketDTO resultOfTableAnalys(TicketTable table) {
+        return tableResult(table, filterTableOriginToDestination(table), airportOrigin, airportDestination);
+    }
+
+    /**
+     * Анализ билетов заданного в настройках маршрута по индексу таблицы
+     *
+     * @param index индекс таблицы билетов
+     * @return DTO с результатами анализа
+     */
+    @Override
+    public TicketDTO resultOfIndexAnalys(TicketTableIndex index) {
+        return resultOfIndexAnalys(index, airportOrigin, airportDestination);
+    }
+
+    /**
+     * Анализ билетов маршрута по индексу таблицы.
+     * Строки маршрута берутся из списка индекса, поэтому время фильтрации
+     * пропорционально количеству билетов маршрута, а не размеру таблицы.
+     *
+     * @param index индекс таблицы билетов
+     * @param origin код аэропорта отправления
+     * @param destination код аэропорта назначения
+     * @return DTO с результатами анализа
+     */
+    @Override
+    public TicketDTO resultOfIndexAnalys(TicketTableIndex index, String origin, String destination) {
+        int[] rows = metrics.time(TicketMetrics.Stage.FILTER, () -> index.routeRows(origin, destination));
+        metrics.countMatched(rows.length);
+        return tableResult(index.table(), rows, origin, destination);
+    }
+
+    /**
+     * Анализ билетов маршрута с вылетом в заданном окне по индексу таблицы.
+     * Границы окна переводятся в минуты от начала эпохи так же, как время вылета
+     * в компактном представлении, и ищутся в упорядоченном по вылету списке маршрута.
+     *
+     * @param index индекс таблицы билетов
+     * @param origin код аэропорта отправления
+     * @param destination код аэропорта назначения
+     * @param from начало окна вылета, включительно
+     * @param to конец окна вылета, не включительно
+     * @return DTO с результатами анализа
+     */
+    @Override
+    public TicketDTO resultOfWindowAnalys(TicketTableIndex index, String origin, String destination,
+                                          LocalDateTime from, LocalDateTime to) {
+        long fromMinutes = Math.floorDiv(from.toEpochSecond(ZoneOffset.UTC), 60);
+        long toMinutes = Math.floorDiv(to.toEpochSecond(ZoneOffset.UTC), 60);
+        int[] rows = metrics.time(TicketMetrics.Stage.FILTER,
+                () -> index.routeRowsDepartingBetween(origin, destination, fromMinutes, toMinutes));
+        metrics.countMatched(rows.length);
+        return tableResult(index.table(), rows, origin, destination);
+    }
+
+    /**
+     * Формирует результаты анализа по выбранным строкам таблицы
+     *
+     * @param table таблица билетов
+     * @param rows номера строк маршрута
+     * @param origin код аэропорта отправления
+     * @param destination код аэропорта назначения
+     * @return DTO с результатами анализа
+     * @throws EmptyRouteException если билеты маршрута не найдены
+     */
+    private TicketDTO tableResult(TicketTable table, int[] rows, String origin, String destination) {
+        if (rows.length == 0) {
+            throw new EmptyRouteException(origin, destination);
+        }
+        CarrierDurationStats durations = metrics.time(TicketMetrics.Stage.MIN_DURATION,
+                () -> collectTableDurations(table, rows));
+        return TicketDTO.builder()
+                .differenceBetweenAverageAndMedianPrice(findDifferrenceBetwenAverageAndMedianTable(table, rows))
+                .mapMinTimeBetweenOriginDist(durations.minDurations())
+                .mapDurationStatsByCarrier(durations.statistics())
+                .build();
+    }
+
+    /**
+     * Анализ загруженного списка билетов за один проход.
+     * Фильтрация по маршруту, сбор цен, сумма и минимальное время полета по авиакомпаниям
+     * считаются одним коллектором, который стратегия выполнения запускает последовательно
+     * или параллельно в зависимости от размера списка.
+     *
+     * @param tickets полный список билетов
+     * @return DTO с результатами анализа
+     */
+    @Override
+    public TicketDTO analyseTickets(List<Ticket> tickets) {
+        Collector<Ticket, TicketAccumulator, TicketAccumulator> collector = Collector.of(
+                this::newAccumulator,
+                (accumulator, ticket) -> {
+                    if (isOriginToDestination(ticket)) {
+                        accumulator.add(ticket.getPrice(), ticket.getCarrier(), calculateTicketDuration(ticket));
+                    }
+                },
+                (first, second) -> {
+                    first.merge(second);
+                    return first;
+                });
+        TicketAccumulator accumulator = metrics.time(TicketMetrics.Stage.FILTER,
+                () -> executionStrategy.collect(tickets, collector));
+        metrics.countMatched(accumulator.getCount());
+        return toTicketDTO(accumulator, airportOrigin, airportDestination);
+    }
+
     /**
      * Вычисляет разницу между средней ценой и медианой стоимости билетов.
      *
@@ -70,7 +439,8 @@ public class TicketServiceImpl implements TicketServiceInternal {
      */
     @Override
     public BigDecimal findDifferrenceBetwenAverageAndMedian(List<Ticket> tickets) {
-        List<BigDecimal> prices = tickets.stream().map(ticket -> ticket.getPrice()).toList();
+        List<BigDecimal> prices = executionStrategy.collect(tickets,
+                Collectors.mapping(Ticket::getPrice, Collectors.toList()));
         BigDecimal average = calculateAverage(prices);
         BigDecimal median = calculateMediana(prices);
         return average.subtract(median);
@@ -84,28 +454,46 @@ public class TicketServiceImpl implements TicketServiceInternal {
      */
     @Override
     public Map<String, Duration> findMinTimeOfFlightBetweenOriginAndDistin(List<Ticket> tickets) {
-        return tickets.stream()
-                .collect(
-                        Collectors.toMap(
-                                ticket -> ticket.getCarrier(),
-                                ticket -> calculateTicketDuration(ticket), (t1, t2) -> {
-                                    return t1.compareTo(t2) <= 0 ? t1 : t2;
-                                }
-                        )
-                );
+        return metrics.time(TicketMetrics.Stage.MIN_DURATION,
+                () -> executionStrategy.collect(tickets, carrierDurationsCollector()).minDurations());
+    }
+
+    /**
+     * Находит статистику времени полета для каждого авиаперевозчика за один проход.
+     * Каждый поток стратегии выполнения заполняет свой агрегатор, которые затем объединяются.
+     *
+     * @param tickets список билетов для анализа
+     * @return карта где ключ - код авиакомпании, значение - статистика времени полета
+     */
+    @Override
+    public Map<String, DurationStats> findDurationStatsBetweenOriginAndDistin(List<Ticket> tickets) {
+        return metrics.time(TicketMetrics.Stage.MIN_DURATION,
+                () -> executionStrategy.collect(tickets, carrierDurationsCollector()).statistics());
+    }
+
+    private Collector<Ticket, CarrierDurationStats, CarrierDurationStats> carrierDurationsCollector() {
+        return Collector.of(
+                CarrierDurationStats::new,
+                (durations, ticket) -> durations.record(ticket.getCarrier(), calculateTicketDuration(ticket).toMinutes()),
+                (first, second) -> {
+                    first.merge(second);
+                    return first;
+                });
     }
 
     /**
      * Вычисляет продолжительность полета по билету.
+     * Дата и время берутся из общего кэша разобранных значений, поэтому
+     * строки не склеиваются и повторно не разбираются форматтером.
      *
      * @param ticket билет для расчета
      * @return продолжительность полета
      */
     @Override
     public Duration calculateTicketDuration(Ticket ticket) {
-        LocalDateTime departure = localDateTimeParser(ticket.getDepartureDate(), ticket.getDepartureTime());
-        LocalDateTime arrive = localDateTimeParser(ticket.getArrivalDate(), ticket.getArrivalTime());
-        return Duration.between(departure, arrive);
+        long departure = dateTimeCache.epochSecond(ticket.getDepartureDate(), ticket.getDepartureTime());
+        long arrive = dateTimeCache.epochSecond(ticket.getArrivalDate(), ticket.getArrivalTime());
+        return Duration.ofSeconds(arrive - departure);
     }
 
     /**
@@ -117,7 +505,7 @@ public class TicketServiceImpl implements TicketServiceInternal {
      */
     @Override
     public LocalDateTime localDateTimeParser(String date, String time) {
-        return LocalDateTime.parse(date + " " + time, dateTimeFormatter);
+        return LocalDateTime.ofEpochSecond(dateTimeCache.epochSecond(date, time), 0, ZoneOffset.UTC);
     }
 
     /**
@@ -128,34 +516,98 @@ public class TicketServiceImpl implements TicketServiceInternal {
      */
     @Override
     public List<Ticket> filterOriginToDestination(List<Ticket> tickets) {
-        return tickets.parallelStream()
-                .filter(ticket ->
-                        airportOrigin.equals(ticket.getOrigin())
-                                && airportDestination.equals(ticket.getDestination()))
-                .toList();
+        return metrics.time(TicketMetrics.Stage.FILTER, () -> executionStrategy.collect(tickets,
+                Collectors.filtering(this::isOriginToDestination, Collectors.toUnmodifiableList())));
+    }
+
+    /**
+     * Проверяет, что билет относится к заданному маршруту.
+     *
+     * @param ticket билет для проверки
+     * @return true если аэропорты отправления и назначения совпадают с заданными
+     */
+    private boolean isOriginToDestination(Ticket ticket) {
+        return airportOrigin.equals(ticket.getOrigin())
+                && airportDestination.equals(ticket.getDestination());
     }
 
     /**
      * Вычисляет среднюю цену билетов.
+     * Цены суммируются в копейках в long, на BigDecimal сумма переходит
+     * только при переполнении или цене с большим числом знаков после запятой.
      *
      * @param prices список цен
      * @return среднее значение цен
      */
     @Override
     public BigDecimal calculateAverage(List<BigDecimal> prices) {
-        BigDecimal sum = prices.parallelStream()
-                .reduce(BigDecimal.ZERO, (bigDecimal, bigDecimal2) -> bigDecimal.add(bigDecimal2));
-        return sum.divide(BigDecimal.valueOf(prices.size()), 2, RoundingMode.HALF_UP);
+        return metrics.time(TicketMetrics.Stage.AVERAGE, () -> {
+            PriceSum sum = executionStrategy.collect(prices, Collector.of(PriceSum::new, PriceSum::add,
+                    (first, second) -> {
+                        first.merge(second);
+                        return first;
+                    }));
+            return sum.average(prices.size());
+        });
     }
 
     /**
      * Вычисляет медианную цену билетов.
+     * Цены переводятся в копейки и медиана находится выбором за линейное время,
+     * для больших списков - параллельно. Если цену нельзя точно выразить в копейках,
+     * используется сортировка BigDecimal. Для нечетного размера возвращается сам элемент списка,
+     * поэтому масштаб медианы совпадает с масштабом исходной цены.
      *
      * @param prices список цен
      * @return медианное значение цен
      */
     @Override
     public BigDecimal calculateMediana(List<BigDecimal> prices) {
+        return metrics.time(TicketMetrics.Stage.MEDIAN, () -> {
+            long[] cents = new long[prices.size()];
+            for (int i = 0; i < cents.length; i++) {
+                cents[i] = PriceCents.toCentsOrNotRepresentable(prices.get(i));
+                if (cents[i] == PriceCents.NOT_REPRESENTABLE) {
+                    return calculateSortedMediana(prices);
+                }
+            }
+            BigDecimal median = medianOfCents(cents);
+            return cents.length % 2 == 1 ? middleElement(prices, median) : median;
+        });
+    }
+
+    /**
+     * Находит в исходном списке цену, равную медиане нечетного списка.
+     * Из равных цен с разным масштабом выбирается та, что стояла бы в середине
+     * после устойчивой сортировки, как в calculateSortedMediana.
+     *
+     * @param prices список цен
+     * @param median медиана, вычисленная в копейках
+     * @return элемент списка, равный медиане
+     */
+    private static BigDecimal middleElement(List<BigDecimal> prices, BigDecimal median) {
+        int less = 0;
+        for (BigDecimal price : prices) {
+            if (price.compareTo(median) < 0) {
+                less++;
+            }
+        }
+        int skip = prices.size() / 2 - less;
+        for (BigDecimal price : prices) {
+            if (price.compareTo(median) == 0 && skip-- == 0) {
+                return price;
+            }
+        }
+        return median;
+    }
+
+    /**
+     * Вычисляет медианную цену билетов полной сортировкой.
+     *
+     * @param prices список цен
+     * @return медианное значение цен
+     */
+    private BigDecimal calculateSortedMediana(List<BigDecimal> prices) {
         List<BigDecimal> sorted = new ArrayList<>(prices);
         Collections.sort(sorted);
         int size = sorted.size();
@@ -166,4 +618,140 @@ public class TicketServiceImpl implements TicketServiceInternal {
                 .add(sorted.get(size / 2))
                 .divide(BigDecimal.valueOf(2), 2, RoundingMode.HALF_UP);
     }
+
+    /**
+     * Вычисляет медиану цен в копейках, выбирая параллельный вариант для больших массивов.
+     *
+     * @param cents цены в копейках, массив может быть переупорядочен
+     * @return медианное значение цен
+     */
+    private BigDecimal medianOfCents(long[] cents) {
+        return cents.length >= medianParallelThreshold
+                ? MedianSelector.parallelMedian(cents, forkJoinPool)
+                : MedianSelector.median(cents);
+    }
+
+    /**
+     * Фильтрует компактные билеты по заданным аэропортам отправления и назначения.
+     *
+     * @param tickets полный список компактных билетов
+     * @return отфильтрованный список компактных билетов
+     */
+    @Override
+    public List<CompactTicket> filterCompactOriginToDestination(List<CompactTicket> tickets) {
+        return metrics.time(TicketMetrics.Stage.FILTER, () -> tickets.stream()
+                .filter(ticket ->
+                        airportOrigin.equals(ticket.origin())
+                                && airportDestination.equals(ticket.destination()))
+                .toList());
+    }
+
+    /**
+     * Вычисляет разницу между средней ценой и медианой по компактным билетам.
+     *
+     * @param tickets список компактных билетов для анализа
+     * @return разница между средней ценой и медианой (средняя - медиана)
+     */
+    @Override
+    public BigDecimal findDifferrenceBetwenAverageAndMedianCompact(List<CompactTicket> tickets) {
+        long[] prices = new long[tickets.size()];
+        PriceSum sum = new PriceSum();
+        for (int i = 0; i < prices.length; i++) {
+            prices[i] = tickets.get(i).priceCents();
+            sum.addCents(prices[i]);
+        }
+        return differenceBetweenAverageAndMedianCents(prices, sum);
+    }
+
+    /**
+     * Находит строки таблицы с билетами по заданным аэропортам отправления и назначения.
+     * Коды аэропортов переводятся в идентификаторы словаря один раз,
+     * далее сравниваются только целые числа.
+     *
+     * @param table таблица билетов
+     * @return номера подходящих строк таблицы
+     */
+    @Override
+    public int[] filterTableOriginToDestination(TicketTable table) {
+        return metrics.time(TicketMetrics.Stage.FILTER, () -> {
+            CodeDictionary dictionary = table.dictionary();
+            int originId = dictionary.find(airportOrigin);
+            int destinationId = dictionary.find(airportDestination);
+            if (originId < 0 || destinationId < 0) {
+                return new int[0];
+            }
+
+            int size = table.size();
+            int[] rows = new int[size];
+            int count = 0;
+            for (int row = 0; row < size; row++) {
+                if (table.originId(row) == originId && table.destinationId(row) == destinationId) {
+                    rows[count++] = row;
+                }
+            }
+            return Arrays.copyOf(rows, count);
+        });
+    }
+
+    /**
+     * Вычисляет разницу между средней ценой и медианой по колонке цен таблицы.
+     *
+     * @param table таблица билетов
+     * @param rows номера строк для анализа
+     * @return разница между средней ценой и медианой (средняя - медиана)
+     */
+    @Override
+    public BigDecimal findDifferrenceBetwenAverageAndMedianTable(TicketTable table, int[] rows) {
+        long[] prices = new long[rows.length];
+        PriceSum sum = new PriceSum();
+        for (int i = 0; i < rows.length; i++) {
+            prices[i] = table.priceCents(rows[i]);
+            sum.addCents(prices[i]);
+        }
+        return differenceBetweenAverageAndMedianCents(prices, sum);
+    }
+
+    /**
+     * Собирает статистику времени полета по компактным билетам
+     *
+     * @param tickets список компактных билетов для анализа
+     * @return статистика времени полета по авиакомпаниям
+     */
+    private CarrierDurationStats collectCompactDurations(List<CompactTicket> tickets) {
+        CarrierDurationStats durations = new CarrierDurationStats();
+        for (CompactTicket ticket : tickets) {
+            durations.record(ticket.carrier(), ticket.durationMinutes());
+        }
+        return durations;
+    }
+
+    /**
+     * Собирает статистику времени полета по строкам таблицы
+     *
+     * @param table таблица билетов
+     * @param rows номера строк для анализа
+     * @return статистика времени полета по авиакомпаниям
+     */
+    private CarrierDurationStats collectTableDurations(TicketTable table, int[] rows) {
+        CodeDictionary dictionary = table.dictionary();
+        CarrierDurationStats durations = new CarrierDurationStats();
+        for (int row : rows) {
+            durations.record(dictionary.codeOf(table.carrierId(row)),
+                    table.arrivalMinutes(row) - table.departureMinutes(row));
+        }
+        return durations;
+    }
+
+    /**
+     * Вычисляет разницу между средней ценой и медианой по ценам в копейках.
+     * Результат совпадает с расчетом по BigDecimal с округлением HALF_UP до двух знаков.
+     *
+     * @param prices цены в копейках, массив может быть переупорядочен
+     * @param sum сумма цен
+     * @return разница между средней ценой и медианой (средняя - медиана)
+     */
+    private BigDecimal differenceBetweenAverageAndMedianCents(long[] prices, PriceSum sum) {
+        BigDecimal average = metrics.time(TicketMetrics.Stage.AVERAGE, () -> sum.average(prices.length));
+        return average.subtract(metrics.time(TicketMetrics.Stage.MEDIAN, () -> medianOfCents(prices)));
+    }
 }
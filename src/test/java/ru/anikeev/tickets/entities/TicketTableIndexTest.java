@@ -0,0 +1,121 @@
+package ru.anikeev.tickets.entities;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.util.Comparator;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.IntPredicate;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TicketTableIndexTest {
+    private static final String[] AIRPORTS = {"VVO", "TLV", "LED", "UFA", "SVO", "KZN"};
+    private static final String[] CARRIERS = {"SU", "S7", "TK", "BA"};
+
+    private static ForkJoinPool pool;
+
+    @BeforeAll
+    static void setUp() {
+        pool = new ForkJoinPool(4);
+    }
+
+    @AfterAll
+    static void tearDown() {
+        pool.shutdown();
+    }
+
+    @Test
+    void indexShouldMatchLinearScan() {
+        TicketTable table = randomTable(300_000, 7);
+        TicketTableIndex index = TicketTableIndex.build(table, pool);
+
+        for (String origin : AIRPORTS) {
+            for (String destination : AIRPORTS) {
+                assertArrayEquals(scan(table, row -> code(table, table.originId(row)).equals(origin)
+                                && code(table, table.destinationId(row)).equals(destination)),
+                        index.routeRows(origin, destination), origin + "-" + destination);
+                for (String carrier : CARRIERS) {
+                    assertArrayEquals(scan(table, row -> code(table, table.originId(row)).equals(origin)
+                                    && code(table, table.destinationId(row)).equals(destination)
+                                    && code(table, table.carrierId(row)).equals(carrier)),
+                            index.routeCarrierRows(origin, destination, carrier));
+                }
+            }
+        }
+        for (String carrier : CARRIERS) {
+            assertArrayEquals(scan(table, row -> code(table, table.carrierId(row)).equals(carrier)),
+                    index.carrierRows(carrier), carrier);
+        }
+        assertEquals(AIRPORTS.length * (AIRPORTS.length - 1), index.routeCount());
+    }
+
+    @Test
+    void departureWindowShouldMatchLinearScanInDepartureOrder() {
+        TicketTable table = randomTable(200_000, 11);
+        TicketTableIndex index = TicketTableIndex.build(table, pool);
+        Random random = new Random(12);
+
+        for (int i = 0; i < 200; i++) {
+            String origin = AIRPORTS[random.nextInt(AIRPORTS.length)];
+            String destination = AIRPORTS[random.nextInt(AIRPORTS.length)];
+            long from = random.nextInt(1_000_000);
+            long to = from + random.nextInt(50_000);
+            int[] expected = IntStream.range(0, table.size())
+                    .filter(row -> code(table, table.originId(row)).equals(origin)
+                            && code(table, table.destinationId(row)).equals(destination)
+                            && table.departureMinutes(row) >= from && table.departureMinutes(row) < to)
+                    .boxed()
+                    .sorted(Comparator.comparingLong(table::departureMinutes))
+                    .mapToInt(Integer::intValue)
+                    .toArray();
+            assertArrayEquals(expected, index.routeRowsDepartingBetween(origin, destination, from, to));
+        }
+        assertEquals(0, index.routeRowsDepartingBetween("VVO", "TLV", 10, 10).length);
+    }
+
+    @Test
+    void unknownCodesShouldReturnEmptyRows() {
+        TicketTable table = randomTable(100, 3);
+        TicketTableIndex index = TicketTableIndex.build(table, pool);
+
+        assertEquals(0, index.routeRows("VVO", "XXX").length);
+        assertEquals(0, index.routeRows("VVO", "VVO").length);
+        assertEquals(0, index.carrierRows("XX").length);
+        assertEquals(0, index.carrierRows("VVO").length);
+    }
+
+    @Test
+    void emptyTableShouldBuildEmptyIndex() {
+        TicketTableIndex index = TicketTableIndex.build(new ColumnarTicketTable(), pool);
+
+        assertEquals(0, index.routeCount());
+        assertEquals(0, index.routeRows("VVO", "TLV").length);
+        assertEquals(0, index.carrierRows("SU").length);
+    }
+
+    private static TicketTable randomTable(int size, long seed) {
+        Random random = new Random(seed);
+        ColumnarTicketTable table = new ColumnarTicketTable();
+        for (int i = 0; i < size; i++) {
+            int origin = random.nextInt(AIRPORTS.length);
+            int destination = (origin + 1 + random.nextInt(AIRPORTS.length - 1)) % AIRPORTS.length;
+            long departure = random.nextInt(1_000_000);
+            table.add(new CompactTicket(AIRPORTS[origin], AIRPORTS[destination],
+                    CARRIERS[random.nextInt(CARRIERS.length)], departure, departure + 60 + random.nextInt(600),
+                    100_000 + random.nextInt(2_000_000)));
+        }
+        return table;
+    }
+
+    private static int[] scan(TicketTable table, IntPredicate predicate) {
+        return IntStream.range(0, table.size()).filter(predicate).toArray();
+    }
+
+    private static String code(TicketTable table, int id) {
+        return table.dictionary().codeOf(id);
+    }
+}
@@ -0,0 +1,50 @@
+package ru.anikeev.tickets.repositories.imp;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DateTimeCacheTest {
+
+    @Test
+    void epochSecondShouldMatchCombinedFormatter() {
+        DateTimeCache cache = new DateTimeCache("dd.MM.yy", "H:mm", DateTimeFormatter.ofPattern("H:mm"), 4096);
+        DateTimeFormatter combined = DateTimeFormatter.ofPattern("dd.MM.yy H:mm");
+        Random random = new Random(21);
+        for (int i = 0; i < 10_000; i++) {
+            String date = String.format("%02d.%02d.%02d", 1 + random.nextInt(31), 1 + random.nextInt(12), random.nextInt(100));
+            String time = random.nextInt(50) == 0 ? "24:00" : random.nextInt(24) + ":" + String.format("%02d", random.nextInt(60));
+            long expected = LocalDateTime.parse(date + " " + time, combined).toEpochSecond(ZoneOffset.UTC);
+            assertEquals(expected, cache.epochSecond(date, time), date + " " + time);
+            assertEquals(expected, cache.epochSecond(date, time), "Повторное обращение должно вернуть значение из кэша");
+        }
+    }
+
+    @Test
+    void invalidValuesShouldBeReportedWithoutCachingExceptions() {
+        DateTimeCache cache = new DateTimeCache("dd.MM.yy", "H:mm", DateTimeFormatter.ofPattern("H:mm"), 4096);
+
+        assertEquals(DateTimeCache.INVALID_DATE, cache.epochDay("32.05.18"));
+        assertEquals(DateTimeCache.INVALID_DATE, cache.epochDay("12-05-18"));
+        assertEquals(DateTimeCache.INVALID_TIME, cache.secondOfDay("12:60"));
+        assertEquals(DateTimeCache.INVALID_TIME, cache.secondOfDay("24:01"));
+        assertEquals(24 * 60 * 60, cache.secondOfDay("24:00"));
+        assertThrows(DateTimeParseException.class, () -> cache.epochSecond("12.05.18", "25:00"));
+    }
+
+    @Test
+    void cacheShouldKeepParsingWhenFull() {
+        DateTimeCache cache = new DateTimeCache("dd.MM.yy", "H:mm", DateTimeFormatter.ofPattern("H:mm"), 2);
+        for (int day = 1; day <= 28; day++) {
+            String date = String.format("%02d.02.18", day);
+            assertEquals(LocalDate.of(2018, 2, day).toEpochDay(), cache.epochDay(date));
+        }
+    }
+}
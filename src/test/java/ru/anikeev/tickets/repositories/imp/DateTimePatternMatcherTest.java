@@ -0,0 +1,106 @@
+package ru.anikeev.tickets.repositories.imp;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DateTimePatternMatcherTest {
+    private static final String[] DATE_PATTERNS = {"dd.MM.yy", "d.M.yy", "dd/MM/yyyy", "yyyy-MM-dd", "d MM yy"};
+    private static final String[] TIME_PATTERNS = {"H:mm", "HH:mm", "H:mm:ss", "m-H"};
+
+    @Test
+    void compileShouldRejectUnsupportedPatterns() {
+        assertNull(DateTimePatternMatcher.compileDate("ddMMyy"), "Соседние поля должны проверяться форматтером");
+        assertNull(DateTimePatternMatcher.compileDate("dd MMM yy"), "Текстовый месяц не поддерживается");
+        assertNull(DateTimePatternMatcher.compileDate("dd.MM"), "Без года нельзя получить дату");
+        assertNull(DateTimePatternMatcher.compileTime("'at' H:mm"), "Кавычки не поддерживаются");
+        assertNotNull(DateTimePatternMatcher.compileTime("H:mm"));
+    }
+
+    @Test
+    void dateMatchShouldAgreeWithFormatter() {
+        Random random = new Random(42);
+        for (String pattern : DATE_PATTERNS) {
+            DateTimePatternMatcher matcher = DateTimePatternMatcher.compileDate(pattern);
+            DateTimeFormatter formatter = DateTimeFormatter.ofPattern(pattern);
+            assertNotNull(matcher, pattern);
+            for (int i = 0; i < 5000; i++) {
+                String text = mutate(random, pattern);
+                boolean expected;
+                try {
+                    LocalDate.parse(text, formatter);
+                    expected = true;
+                } catch (DateTimeParseException e) {
+                    expected = false;
+                }
+                assertAgrees(expected, matcher.match(text), pattern, text);
+            }
+        }
+    }
+
+    @Test
+    void timeMatchShouldAgreeWithFormatter() {
+        Random random = new Random(7);
+        for (String pattern : TIME_PATTERNS) {
+            DateTimePatternMatcher matcher = DateTimePatternMatcher.compileTime(pattern);
+            DateTimeFormatter formatter = DateTimeFormatter.ofPattern(pattern);
+            assertNotNull(matcher, pattern);
+            for (int i = 0; i < 5000; i++) {
+                String text = mutate(random, pattern);
+                boolean expected;
+                try {
+                    LocalTime.parse(text, formatter);
+                    expected = true;
+                } catch (DateTimeParseException e) {
+                    expected = false;
+                }
+                assertAgrees(expected, matcher.match(text), pattern, text);
+            }
+        }
+        assertEquals(DateTimePatternMatcher.Result.VALID, DateTimePatternMatcher.compileTime("H:mm").match("24:00"));
+        assertEquals(DateTimePatternMatcher.Result.INVALID, DateTimePatternMatcher.compileTime("H:mm").match("24:01"));
+    }
+
+    private static void assertAgrees(boolean expected, DateTimePatternMatcher.Result actual, String pattern, String text) {
+        if (actual != DateTimePatternMatcher.Result.UNKNOWN) {
+            assertEquals(expected, actual == DateTimePatternMatcher.Result.VALID,
+                    "Шаблон " + pattern + ", строка '" + text + "'");
+        }
+    }
+
+    /**
+     * Строит строку по шаблону из случайных цифр с редкими искажениями
+     */
+    private static String mutate(Random random, String pattern) {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < pattern.length(); i++) {
+            char symbol = pattern.charAt(i);
+            if (Character.isLetter(symbol)) {
+                int digits = random.nextInt(10) == 0 ? random.nextInt(4) : 1;
+                for (int d = 0; d < digits; d++) {
+                    text.append((char) ('0' + random.nextInt(10)));
+                }
+                if (random.nextInt(4) == 0) {
+                    text.append((char) ('0' + random.nextInt(3)));
+                }
+            } else {
+                text.append(symbol);
+            }
+            switch (random.nextInt(60)) {
+                case 0 -> text.append('+');
+                case 1 -> text.append('x');
+                case 2 -> text.append('-');
+                case 3 -> text.append(' ');
+                default -> {
+                }
+            }
+        }
+        return text.toString();
+    }
+}
@@ -1,18 +1,26 @@
 package ru.anikeev.tickets.repositories.imp;
 
-import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.TestConstructor;
+import ru.anikeev.tickets.entities.CompactTicket;
 import ru.anikeev.tickets.entities.Ticket;
+import ru.anikeev.tickets.repositories.RejectReason;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.math.BigDecimal;
+import java.nio.channels.FileChannel;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPOutputStream;
 import static org.junit.jupiter.api.Assertions.*;
 
 
@@ -23,6 +31,8 @@ class JsonReaderImplTest {
     @Autowired
     private JsonReaderImpl jsonReader;
 
+    @TempDir
+    private Path tempDir;
     private Path tempTestFile;
 
     @BeforeEach
@@ -45,18 +55,10 @@ class JsonReaderImplTest {
                 }
                 """;
 
-        tempTestFile = Files.createTempFile("test_tickets", ".json");
+        tempTestFile = Files.createTempFile(tempDir, "test_tickets", ".json");
         Files.writeString(tempTestFile, testJson);
     }
 
-    @AfterEach
-    void tearDown() throws IOException {
-
-        if (tempTestFile != null) {
-            Files.deleteIfExists(tempTestFile);
-        }
-    }
-
     @Test
     void readJsonByPathShouldReturnTicketsWhenFileValid() {
         List<Ticket> result = jsonReader.readJsonByPath(tempTestFile.toString());
@@ -65,10 +67,355 @@ class JsonReaderImplTest {
         assertEquals(new BigDecimal("10000"), result.get(0).getPrice(), "Неверная цена билета");
     }
 
+    @Test
+    void readJsonByPathShouldPassTicketsToConsumer() {
+        List<Ticket> consumed = new ArrayList<>();
+        jsonReader.readJsonByPath(tempTestFile.toString(), consumed::add);
+        assertEquals(1, consumed.size(), "Обработчик должен получить один билет");
+        assertEquals("SU", consumed.get(0).getCarrier(), "Неверный carrier билета");
+    }
+
+    @Test
+    void readJsonByPathParallelShouldReturnSameTicketsAsSequentialRead() throws IOException {
+        Path multiTicketFile = createMultiTicketFile(50);
+        List<Ticket> sequential = jsonReader.readJsonByPath(multiTicketFile.toString());
+        List<Ticket> parallel = jsonReader.readJsonByPathParallel(multiTicketFile.toString());
+        assertEquals(50, parallel.size(), "Параллельное чтение должно вернуть все билеты");
+        assertEquals(sequential, parallel, "Порядок и содержимое билетов должны совпадать");
+    }
+
+    @Test
+    void splitShouldCutArrayOnlyBetweenElements() throws IOException {
+        Path multiTicketFile = createMultiTicketFile(10);
+        try (FileChannel channel = FileChannel.open(multiTicketFile, StandardOpenOption.READ)) {
+            String content = Files.readString(multiTicketFile);
+            long arrayStart = content.indexOf('[') + 1;
+            List<TicketsChunkSplitter.Chunk> chunks = TicketsChunkSplitter.split(channel, arrayStart, 100);
+
+            assertTrue(chunks.size() > 1, "Массив должен быть разбит на несколько участков");
+            for (TicketsChunkSplitter.Chunk chunk : chunks) {
+                String text = content.substring((int) chunk.start(), (int) chunk.end()).strip();
+                assertTrue(text.startsWith("{") && text.endsWith("}"),
+                        "Участок должен состоять из целых элементов массива: " + text);
+            }
+        }
+    }
+
+    @Test
+    void readJsonByPathShouldDetectJsonLinesAndGzip() throws IOException {
+        Path multiTicketFile = createMultiTicketFile(5000);
+        Path jsonLinesFile = createJsonLinesFile(5000);
+        Path gzipJsonLinesFile = gzip(jsonLinesFile);
+        Path gzipFile = gzip(multiTicketFile);
+        List<Ticket> expected = jsonReader.readJsonByPath(multiTicketFile.toString());
+        assertEquals(5000, expected.size());
+        for (Path file : List.of(jsonLinesFile, gzipJsonLinesFile, gzipFile)) {
+            assertEquals(expected, jsonReader.readJsonByPath(file.toString()), "Последовательное чтение " + file);
+            assertEquals(expected, jsonReader.readJsonByPathParallel(file.toString()), "Параллельное чтение " + file);
+        }
+    }
+
+    @Test
+    void splitLinesShouldCutOnlyAfterLineBreaks() throws IOException {
+        Path jsonLinesFile = createJsonLinesFile(10);
+        try (FileChannel channel = FileChannel.open(jsonLinesFile, StandardOpenOption.READ)) {
+            String content = Files.readString(jsonLinesFile);
+            List<TicketsChunkSplitter.Chunk> chunks = TicketsChunkSplitter.splitLines(channel, 100);
+
+            assertTrue(chunks.size() > 1, "Файл должен быть разбит на несколько участков");
+            assertEquals(0, chunks.get(0).start());
+            assertEquals(content.length(), chunks.get(chunks.size() - 1).end());
+            for (TicketsChunkSplitter.Chunk chunk : chunks) {
+                String text = content.substring((int) chunk.start(), (int) chunk.end());
+                assertTrue(text.startsWith("{") && text.endsWith("}\n"),
+                        "Участок должен состоять из целых строк: " + text);
+            }
+        }
+    }
+
+    @Test
+    void readJsonByPathShouldSkipMalformedTicketAndContinue() throws IOException {
+        Path malformedFile = Files.createTempFile(tempDir, "test_tickets", ".json");
+        Files.writeString(malformedFile, """
+                {
+                  "tickets": [
+                    {"origin": "VVO", "destination": "TLV", "departure_date": "12.05.18",
+                     "departure_time": "10:00", "arrival_date": "12.05.18", "arrival_time": "12:00",
+                     "carrier": "SU", "price": {"amount": 1}, "unknown": [1, 2]},
+                    {"origin": "VVO", "origin_name": "Владивосток", "destination": "TLV",
+                     "destination_name": "Тель-Авив", "departure_date": "12.05.18",
+                     "departure_time": "10:00", "arrival_date": "12.05.18", "arrival_time": "12:00",
+                     "carrier": "TK", "stops": 1, "price": "12000.50"}
+                  ]
+                }
+                """);
+        List<Ticket> result = jsonReader.readJsonByPath(malformedFile.toString());
+        assertEquals(1, result.size(), "Некорректный билет должен быть пропущен");
+        assertEquals("TK", result.get(0).getCarrier(), "Неверный carrier билета");
+        assertEquals(1, result.get(0).getStops(), "Неверное количество пересадок");
+        assertEquals(new BigDecimal("12000.50"), result.get(0).getPrice(), "Неверная цена билета");
+        assertNull(result.get(0).getOriginName(), "Название аэропорта не должно декодироваться");
+    }
+
+    @Test
+    void readJsonByPathShouldCountRejectedTicketsByReason() throws IOException {
+        Path dirtyFile = Files.createTempFile(tempDir, "test_tickets", ".json");
+        Files.writeString(dirtyFile, """
+                {
+                  "tickets": [
+                    {"origin": "VVO", "destination": "TLV", "departure_date": "12.05.18",
+                     "departure_time": "10:00", "arrival_date": "12.05.18", "arrival_time": "12:00",
+                     "carrier": "SU", "price": 10000},
+                    {"origin": "VVO", "destination": "TLV", "departure_date": "32.05.18",
+                     "departure_time": "10:00", "arrival_date": "12.05.18", "arrival_time": "12:00",
+                     "carrier": "SU", "price": 10000},
+                    {"origin": "VVO", "destination": "TLV", "departure_date": "12.05.18",
+                     "departure_time": "10:00", "arrival_date": "12.05.18", "arrival_time": "12:60",
+                     "carrier": "SU", "price": 10000},
+                    {"origin": "VVO", "destination": "TLV", "departure_date": "12.05.18",
+                     "departure_time": "10:00", "arrival_date": "12.05.18", "arrival_time": "12:00",
+                     "carrier": "SU", "price": -1},
+                    {"origin": "", "destination": "TLV", "departure_date": "12.05.18",
+                     "departure_time": "10:00", "arrival_date": "12.05.18", "arrival_time": "12:00",
+                     "carrier": "SU", "price": 10000}
+                  ]
+                }
+                """);
+        Map<RejectReason, Long> before = jsonReader.getRejectCounts();
+        List<Ticket> result = jsonReader.readJsonByPath(dirtyFile.toString());
+        Map<RejectReason, Long> after = jsonReader.getRejectCounts();
+
+        assertEquals(1, result.size(), "Должен остаться один валидный билет");
+        assertEquals(1, after.get(RejectReason.INVALID_DEPARTURE_DATE) - before.get(RejectReason.INVALID_DEPARTURE_DATE));
+        assertEquals(1, after.get(RejectReason.INVALID_ARRIVAL_TIME) - before.get(RejectReason.INVALID_ARRIVAL_TIME));
+        assertEquals(1, after.get(RejectReason.INVALID_PRICE) - before.get(RejectReason.INVALID_PRICE));
+        assertEquals(1, after.get(RejectReason.MISSING_ROUTE) - before.get(RejectReason.MISSING_ROUTE));
+    }
+
+    @Test
+    void readJsonByPathShouldCoerceStopsLikeJackson() throws IOException {
+        Path stopsFile = Files.createTempFile(tempDir, "test_tickets", ".json");
+        Files.writeString(stopsFile, """
+                {
+                  "tickets": [
+                    {"origin": "VVO", "destination": "TLV", "departure_date": "12.05.18",
+                     "departure_time": "10:00", "arrival_date": "12.05.18", "arrival_time": "12:00",
+                     "carrier": "SU", "stops": "1", "price": 10000},
+                    {"origin": "VVO", "destination": "TLV", "departure_date": "12.05.18",
+                     "departure_time": "10:00", "arrival_date": "12.05.18", "arrival_time": "12:00",
+                     "carrier": "S7", "stops": 2.0, "price": 10000},
+                    {"origin": "VVO", "destination": "TLV", "departure_date": "12.05.18",
+                     "departure_time": "10:00", "arrival_date": "12.05.18", "arrival_time": "12:00",
+                     "carrier": "TK", "stops": null, "price": 10000},
+                    {"origin": "VVO", "destination": "TLV", "departure_date": "12.05.18",
+                     "departure_time": "10:00", "arrival_date": "12.05.18", "arrival_time": "12:00",
+                     "carrier": "BA", "stops": "один", "price": 10000},
+                    {"origin": "VVO", "destination": "TLV", "departure_date": "12.05.18",
+                     "departure_time": "10:00", "arrival_date": "12.05.18", "arrival_time": "12:00",
+                     "carrier": "LH", "stops": true, "price": 10000}
+                  ]
+                }
+                """);
+        Map<RejectReason, Long> before = jsonReader.getRejectCounts();
+        List<Ticket> result = jsonReader.readJsonByPath(stopsFile.toString());
+        Map<RejectReason, Long> after = jsonReader.getRejectCounts();
+
+        assertEquals(List.of("SU", "S7", "TK"), result.stream().map(Ticket::getCarrier).toList());
+        assertEquals(List.of(1, 2, 0), result.stream().map(Ticket::getStops).toList());
+        assertEquals(2, after.get(RejectReason.MALFORMED) - before.get(RejectReason.MALFORMED));
+    }
+
+    @Test
+    void readJsonByPathShouldCountNullElementsAsNullTickets() throws IOException {
+        Path nullFile = Files.createTempFile(tempDir, "test_tickets", ".json");
+        Files.writeString(nullFile, """
+                {
+                  "tickets": [
+                    null,
+                    {"origin": "VVO", "destination": "TLV", "departure_date": "12.05.18",
+                     "departure_time": "10:00", "arrival_date": "12.05.18", "arrival_time": "12:00",
+                     "carrier": "TK", "stops": 0, "price": 10000},
+                    null
+                  ]
+                }
+                """);
+        Map<RejectReason, Long> before = jsonReader.getRejectCounts();
+        List<Ticket> result = jsonReader.readJsonByPath(nullFile.toString());
+        Map<RejectReason, Long> after = jsonReader.getRejectCounts();
+
+        assertEquals(1, result.size(), "Должен остаться только билет-объект");
+        assertEquals(2, after.get(RejectReason.NULL_TICKET) - before.get(RejectReason.NULL_TICKET));
+        assertEquals(0, after.get(RejectReason.MALFORMED) - before.get(RejectReason.MALFORMED));
+    }
+
+    @Test
+    void readJsonByPathShouldResyncAfterIntegerOverflow() throws IOException {
+        Path overflowFile = Files.createTempFile(tempDir, "test_tickets", ".json");
+        Files.writeString(overflowFile, """
+                {
+                  "tickets": [
+                    {"origin": "VVO", "destination": "TLV", "stops": 99999999999, "departure_date": "12.05.18",
+                     "departure_time": "10:00", "arrival_date": "12.05.18", "arrival_time": "12:00",
+                     "carrier": "SU", "price": 10000, "layovers": [{"airport": "LED"}]},
+                    {"origin": "VVO", "destination": "TLV", "departure_date": "12.05.18",
+                     "departure_time": "10:00", "arrival_date": "12.05.18", "arrival_time": "12:00",
+                     "carrier": "TK", "price": 10000}
+                  ]
+                }
+                """);
+        Map<RejectReason, Long> before = jsonReader.getRejectCounts();
+        List<Ticket> result = jsonReader.readJsonByPath(overflowFile.toString());
+        Map<RejectReason, Long> after = jsonReader.getRejectCounts();
+
+        assertEquals(List.of("TK"), result.stream().map(Ticket::getCarrier).toList(),
+                "После переполнения числа разбор должен продолжиться со следующего билета");
+        assertEquals(1, after.get(RejectReason.MALFORMED) - before.get(RejectReason.MALFORMED));
+    }
+
+    @Test
+    void readJsonByPathShouldResyncAfterStreamConstraintViolation() throws IOException {
+        Path longNumberFile = Files.createTempFile(tempDir, "test_tickets", ".json");
+        Files.writeString(longNumberFile, """
+                {
+                  "tickets": [
+                    {"origin": "VVO", "destination": "TLV", "departure_date": "12.05.18",
+                     "departure_time": "10:00", "arrival_date": "12.05.18", "arrival_time": "12:00",
+                     "carrier": "TK", "price": 10000},
+                    {"origin": "VVO", "destination": "TLV", "price": %s, "departure_date": "12.05.18",
+                     "departure_time": "10:00", "arrival_date": "12.05.18", "arrival_time": "12:00",
+                     "carrier": "S7"},
+                    {"origin": "VVO", "destination": "TLV", "departure_date": "12.05.18",
+                     "departure_time": "11:00", "arrival_date": "12.05.18", "arrival_time": "13:00",
+                     "carrier": "SU", "price": 10000}
+                  ]
+                }
+                """.formatted("1".repeat(2000)));
+        Map<RejectReason, Long> before = jsonReader.getRejectCounts();
+        List<Ticket> result = jsonReader.readJsonByPath(longNumberFile.toString());
+        Map<RejectReason, Long> after = jsonReader.getRejectCounts();
+
+        assertEquals(List.of("TK", "SU"), result.stream().map(Ticket::getCarrier).toList());
+        assertEquals(1, after.get(RejectReason.MALFORMED) - before.get(RejectReason.MALFORMED),
+                "Нарушение лимита парсера должно учитываться одним отклоненным билетом");
+    }
+
+    @Test
+    void readRouteByPathShouldSkipOtherRoutesWithoutValidation() throws IOException {
+        Path routeFile = Files.createTempFile(tempDir, "test_tickets", ".json");
+        Files.writeString(routeFile, """
+                {
+                  "tickets": [
+                    {"origin": "VVO", "destination": "TLV", "departure_date": "12.05.18",
+                     "departure_time": "10:00", "arrival_date": "12.05.18", "arrival_time": "12:00",
+                     "carrier": "SU", "price": 10000},
+                    {"origin": "LED", "destination": "TLV", "departure_date": "32.05.18",
+                     "departure_time": "10:00", "arrival_date": "12.05.18", "arrival_time": "12:00",
+                     "carrier": "SU", "price": 10000, "layovers": [{"airport": "VVO"}]},
+                    {"carrier": "TK", "price": -1, "departure_date": "12.05.18",
+                     "departure_time": "10:00", "arrival_date": "12.05.18", "arrival_time": "12:00",
+                     "origin": "VVO", "destination": "UFA"},
+                    {"carrier": "S7", "price": 20000, "departure_date": "12.05.18",
+                     "departure_time": "11:00", "arrival_date": "12.05.18", "arrival_time": "15:00",
+                     "origin": "VVO", "destination": "TLV"},
+                    {"origin": "VVO", "destination": "TLV", "departure_date": "12.05.18",
+                     "departure_time": "10:00", "arrival_date": "12.05.18", "arrival_time": "12:00",
+                     "carrier": "SU", "price": -1}
+                  ]
+                }
+                """);
+        Map<RejectReason, Long> before = jsonReader.getRejectCounts();
+        List<Ticket> result = new ArrayList<>();
+        jsonReader.readRouteByPath(routeFile.toString(), "VVO", "TLV", result::add);
+        Map<RejectReason, Long> after = jsonReader.getRejectCounts();
+
+        assertEquals(List.of("SU", "S7"), result.stream().map(Ticket::getCarrier).toList());
+        assertEquals(1, after.get(RejectReason.INVALID_PRICE) - before.get(RejectReason.INVALID_PRICE),
+                "Отклоняться должны только билеты заданного маршрута");
+        assertEquals(before.get(RejectReason.INVALID_DEPARTURE_DATE), after.get(RejectReason.INVALID_DEPARTURE_DATE));
+        assertEquals(before.get(RejectReason.MALFORMED), after.get(RejectReason.MALFORMED));
+
+        List<CompactTicket> compact = new ArrayList<>();
+        jsonReader.readCompactRouteByPath(routeFile.toString(), "VVO", "TLV", compact::add);
+        assertEquals(List.of("SU", "S7"), compact.stream().map(CompactTicket::carrier).toList());
+        assertEquals(after.get(RejectReason.INVALID_DEPARTURE_DATE),
+                jsonReader.getRejectCounts().get(RejectReason.INVALID_DEPARTURE_DATE));
+    }
+
+    @Test
+    void readRouteByPathShouldSkipTicketsWithNonStringAirportCodes() throws IOException {
+        Path routeFile = Files.createTempFile(tempDir, "test_tickets", ".json");
+        Files.writeString(routeFile, """
+                {
+                  "tickets": [
+                    {"origin": 123, "destination": "TLV", "departure_date": "12.05.18",
+                     "departure_time": "10:00", "arrival_date": "12.05.18", "arrival_time": "12:00",
+                     "carrier": "SU", "price": 10000},
+                    {"origin": "VVO", "destination": true, "departure_date": "12.05.18",
+                     "departure_time": "10:00", "arrival_date": "12.05.18", "arrival_time": "12:00",
+                     "carrier": "SU", "price": 10000},
+                    {"origin": null, "destination": "TLV", "departure_date": "12.05.18",
+                     "departure_time": "10:00", "arrival_date": "12.05.18", "arrival_time": "12:00",
+                     "carrier": "SU", "price": 10000},
+                    {"origin": "VVO", "destination": "TLV", "departure_date": "12.05.18",
+                     "departure_time": "10:00", "arrival_date": "12.05.18", "arrival_time": "12:00",
+                     "carrier": "TK", "price": 10000}
+                  ]
+                }
+                """);
+        Map<RejectReason, Long> before = jsonReader.getRejectCounts();
+        List<Ticket> result = new ArrayList<>();
+        jsonReader.readRouteByPath(routeFile.toString(), "VVO", "TLV", result::add);
+        Map<RejectReason, Long> after = jsonReader.getRejectCounts();
+
+        assertEquals(List.of("TK"), result.stream().map(Ticket::getCarrier).toList(),
+                "Числовой или логический код аэропорта не должен совпадать с маршрутом");
+        assertEquals(1, after.get(RejectReason.MISSING_ROUTE) - before.get(RejectReason.MISSING_ROUTE),
+                "Отсутствующий код должен отклоняться валидацией");
+    }
+
     @Test
     void readJsonByPathShouldReturnEmptyListWhenFileNotExists() {
         List<Ticket> result = jsonReader.readJsonByPath("non_existent_file.json");
         assertTrue(result.isEmpty(), "Для несуществующего файла должен вернуться пустой список");
     }
 
+    private Path createJsonLinesFile(int count) throws IOException {
+        StringBuilder json = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            json.append("""
+                    {"origin": "VVO", "origin_name": "Vladivostok, [{\\"}]", "destination": "TLV", \
+                    "departure_date": "12.05.18", "departure_time": "10:00", \
+                    "arrival_date": "12.05.18", "arrival_time": "18:00", "carrier": "SU", "price": %d}
+                    """.formatted(10000 + i));
+        }
+        Path file = Files.createTempFile(tempDir, "test_tickets", ".jsonl");
+        Files.writeString(file, json);
+        return file;
+    }
+
+    private Path gzip(Path source) throws IOException {
+        Path file = Files.createTempFile(tempDir, "test_tickets", ".gz");
+        try (OutputStream output = new GZIPOutputStream(Files.newOutputStream(file))) {
+            Files.copy(source, output);
+        }
+        return file;
+    }
+
+    private Path createMultiTicketFile(int count) throws IOException {
+        StringBuilder json = new StringBuilder("{\"tickets\": [");
+        for (int i = 0; i < count; i++) {
+            if (i > 0) {
+                json.append(",\n");
+            }
+            json.append("""
+                    {"origin": "VVO", "origin_name": "Vladivostok, [{\\"}]", "destination": "TLV",
+                     "departure_date": "12.05.18", "departure_time": "10:00",
+                     "arrival_date": "12.05.18", "arrival_time": "18:00", "carrier": "SU", "price": %d}""".formatted(10000 + i));
+        }
+        json.append("]}");
+        Path file = Files.createTempFile(tempDir, "test_tickets", ".json");
+        Files.writeString(file, json);
+        return file;
+    }
+
 }
\ No newline at end of file
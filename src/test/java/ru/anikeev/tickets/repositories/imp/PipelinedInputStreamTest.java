@@ -0,0 +1,43 @@
+package ru.anikeev.tickets.repositories.imp;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.time.Duration;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PipelinedInputStreamTest {
+
+    @Test
+    void readShouldReturnSourceBytesInOrder() throws IOException {
+        byte[] data = new byte[1_000_000];
+        new Random(3).nextBytes(data);
+
+        try (InputStream input = new PipelinedInputStream(new ByteArrayInputStream(data))) {
+            assertArrayEquals(data, input.readAllBytes());
+        }
+    }
+
+    @Test
+    void uncheckedSourceFailureShouldReachReaderInsteadOfBlockingIt() {
+        InputStream failing = new InputStream() {
+            @Override
+            public int read() {
+                throw new IllegalStateException("Поврежденный архив");
+            }
+        };
+        InputStream source = new SequenceInputStream(new ByteArrayInputStream(new byte[10]), failing);
+
+        IOException error = assertTimeoutPreemptively(Duration.ofSeconds(10), () -> {
+            try (InputStream input = new PipelinedInputStream(source)) {
+                return assertThrows(IOException.class, input::readAllBytes);
+            }
+        });
+        assertInstanceOf(IllegalStateException.class, error.getCause());
+    }
+}
@@ -0,0 +1,60 @@
+package ru.anikeev.tickets.repositories.imp;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TicketInputFormatTest {
+    private static final String TICKET = """
+            {"origin": "VVO", "destination": "TLV", "carrier": "SU", "price": 10000}
+            """;
+
+    private final JsonFactory factory = new JsonFactory();
+
+    @TempDir
+    private Path directory;
+
+    @Test
+    void extensionShouldDecideFormatBeforeContent() throws IOException {
+        assertEquals(new TicketInputFormat(false, true), detect("tickets.jsonl", TICKET));
+        assertEquals(new TicketInputFormat(false, true), detect("tickets.NDJSON", TICKET));
+        assertEquals(new TicketInputFormat(false, false), detect("tickets.json", TICKET + TICKET));
+        assertEquals(new TicketInputFormat(true, true), detectGzip("tickets.jsonl.gz", TICKET));
+        assertEquals(new TicketInputFormat(true, false), detectGzip("tickets.json.gz", TICKET + TICKET));
+    }
+
+    @Test
+    void singleObjectWithoutTicketsShouldNotBeSniffedAsJsonLines() throws IOException {
+        assertFalse(detect("tickets.txt", TICKET).jsonLines());
+        assertFalse(detect("tickets.txt", "{\"meta\": {\"version\": 1}}").jsonLines());
+        assertFalse(detect("tickets.txt", "{\"tickets\": []}\n{\"tickets\": []}").jsonLines());
+    }
+
+    @Test
+    void severalTopLevelObjectsShouldBeSniffedAsJsonLines() throws IOException {
+        assertTrue(detect("tickets.txt", TICKET + TICKET).jsonLines());
+        assertEquals(new TicketInputFormat(true, true), detectGzip("tickets.gz", TICKET + TICKET));
+    }
+
+    private TicketInputFormat detect(String name, String content) throws IOException {
+        Path file = directory.resolve(name);
+        Files.writeString(file, content);
+        return TicketInputFormat.detect(file, factory, "tickets");
+    }
+
+    private TicketInputFormat detectGzip(String name, String content) throws IOException {
+        Path file = directory.resolve(name);
+        try (OutputStream output = new GZIPOutputStream(Files.newOutputStream(file))) {
+            output.write(content.getBytes());
+        }
+        return TicketInputFormat.detect(file, factory, "tickets");
+    }
+}
@@ -0,0 +1,152 @@
+package ru.anikeev.tickets.repositories.imp;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestConstructor;
+import ru.anikeev.tickets.entities.TicketTable;
+import ru.anikeev.tickets.repositories.JsonReader;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Instant;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@ActiveProfiles("test")
+@TestConstructor(autowireMode = TestConstructor.AutowireMode.ALL)
+class TicketTableReaderImplTest {
+    @Autowired
+    private TicketTableReaderImpl ticketTableReader;
+    @Autowired
+    private JsonReader jsonReader;
+    @Autowired
+    @Qualifier("ticketsForkJoinPool")
+    private ForkJoinPool forkJoinPool;
+
+    @TempDir
+    private Path tempDir;
+    private Path tempTestFile;
+    private Path snapshotFile;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        tempTestFile = Files.createTempFile(tempDir, "test_tickets", ".json");
+        snapshotFile = Path.of(tempTestFile + ".tkts");
+        writeTickets(tempTestFile, 10000, 15500);
+    }
+
+    @Test
+    void readTableByPathShouldLoadColumns() {
+        TicketTable table = ticketTableReader.readTableByPath(tempTestFile.toString());
+        assertEquals(2, table.size());
+        assertEquals("VVO", table.dictionary().codeOf(table.originId(0)));
+        assertEquals("SU", table.dictionary().codeOf(table.carrierId(1)));
+        assertEquals(1_550_000, table.priceCents(1));
+        assertEquals(8 * 60, table.arrivalMinutes(0) - table.departureMinutes(0));
+    }
+
+    @Test
+    void readTableWithSnapshotShouldMapSnapshotOnSecondRead() {
+        TicketTable parsed = ticketTableReader.readTableWithSnapshot(tempTestFile.toString());
+        assertTrue(Files.isRegularFile(snapshotFile), "Снимок должен быть сохранен");
+
+        TicketTable mapped = ticketTableReader.readTableWithSnapshot(tempTestFile.toString());
+        assertInstanceOf(MappedTicketSnapshot.class, mapped);
+        assertTablesEqual(parsed, mapped);
+    }
+
+    @Test
+    void readTableWithSnapshotShouldReparseChangedFile() throws IOException {
+        ticketTableReader.readTableWithSnapshot(tempTestFile.toString());
+
+        writeTickets(tempTestFile, 20000, 30000, 40000);
+        Files.setLastModifiedTime(tempTestFile, FileTime.from(Instant.now().plusSeconds(60)));
+        TicketTable table = ticketTableReader.readTableWithSnapshot(tempTestFile.toString());
+
+        assertEquals(3, table.size());
+        assertEquals(4_000_000, table.priceCents(2));
+        assertInstanceOf(MappedTicketSnapshot.class, ticketTableReader.readTableWithSnapshot(tempTestFile.toString()));
+    }
+
+    @Test
+    void readTableWithSnapshotShouldRebuildSnapshotWrittenWithOtherDateFormats() {
+        ticketTableReader.readTableWithSnapshot(tempTestFile.toString());
+        TicketTableReaderImpl otherFormatReader = new TicketTableReaderImpl(jsonReader, forkJoinPool, "tickets", "dd.MM.yyyy", "H:mm");
+
+        TicketTable table = otherFormatReader.readTableWithSnapshot(tempTestFile.toString());
+        assertFalse(table instanceof MappedTicketSnapshot, "Снимок с другими форматами не должен использоваться");
+        assertInstanceOf(MappedTicketSnapshot.class, otherFormatReader.readTableWithSnapshot(tempTestFile.toString()));
+        assertFalse(ticketTableReader.readTableWithSnapshot(tempTestFile.toString()) instanceof MappedTicketSnapshot,
+                "Снимок должен быть перестроен при возврате к прежним форматам");
+    }
+
+    @Test
+    void readTableWithSnapshotShouldRebuildSnapshotWrittenForOtherTicketsField() {
+        ticketTableReader.readTableWithSnapshot(tempTestFile.toString());
+        TicketTableReaderImpl otherFieldReader = new TicketTableReaderImpl(jsonReader, forkJoinPool,
+                "flights", "dd.MM.yy", "H:mm");
+
+        assertFalse(otherFieldReader.readTableWithSnapshot(tempTestFile.toString()) instanceof MappedTicketSnapshot,
+                "Снимок, построенный по другому полю массива билетов, не должен использоваться");
+    }
+
+    @Test
+    void readTableWithSnapshotShouldNotPersistTruncatedFile() throws IOException {
+        String json = Files.readString(tempTestFile);
+        Files.writeString(tempTestFile, json.substring(0, json.lastIndexOf('}', json.length() - 3)));
+
+        TicketTable table = ticketTableReader.readTableWithSnapshot(tempTestFile.toString());
+        assertEquals(1, table.size(), "Билеты до места обрыва файла должны быть прочитаны");
+        assertFalse(Files.exists(snapshotFile), "Снимок обрезанного файла не должен сохраняться");
+    }
+
+    @Test
+    void readTableWithSnapshotShouldNotPersistFileWithoutValidTickets() throws IOException {
+        writeTickets(tempTestFile, -1, -2);
+
+        assertEquals(0, ticketTableReader.readTableWithSnapshot(tempTestFile.toString()).size());
+        assertFalse(Files.exists(snapshotFile), "Снимок без билетов не должен сохраняться");
+
+        Files.writeString(tempTestFile, "{\"flights\": []}");
+        assertEquals(0, ticketTableReader.readTableWithSnapshot(tempTestFile.toString()).size());
+        assertFalse(Files.exists(snapshotFile));
+    }
+
+    private void assertTablesEqual(TicketTable expected, TicketTable actual) {
+        assertEquals(expected.size(), actual.size());
+        for (int row = 0; row < expected.size(); row++) {
+            assertEquals(expected.dictionary().codeOf(expected.originId(row)),
+                    actual.dictionary().codeOf(actual.originId(row)));
+            assertEquals(expected.dictionary().codeOf(expected.destinationId(row)),
+                    actual.dictionary().codeOf(actual.destinationId(row)));
+            assertEquals(expected.dictionary().codeOf(expected.carrierId(row)),
+                    actual.dictionary().codeOf(actual.carrierId(row)));
+            assertEquals(expected.departureMinutes(row), actual.departureMinutes(row));
+            assertEquals(expected.arrivalMinutes(row), actual.arrivalMinutes(row));
+            assertEquals(expected.priceCents(row), actual.priceCents(row));
+        }
+    }
+
+    private void writeTickets(Path file, int... prices) throws IOException {
+        StringBuilder json = new StringBuilder("{\"tickets\": [");
+        for (int i = 0; i < prices.length; i++) {
+            if (i > 0) {
+                json.append(',');
+            }
+            json.append("""
+                    {"origin": "VVO", "destination": "TLV", "departure_date": "12.05.18", "departure_time": "10:00",
+                     "arrival_date": "12.05.18", "arrival_time": "18:00", "carrier": "SU", "price": %d}""".formatted(prices[i]));
+        }
+        json.append("]}");
+        Files.writeString(file, json);
+    }
+}
@@ -0,0 +1,109 @@
+package ru.anikeev.tickets.server;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestConstructor;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(properties = "query.server.port=0")
+@ActiveProfiles({"test", "server"})
+@TestConstructor(autowireMode = TestConstructor.AutowireMode.ALL)
+class TicketQueryServerTest {
+    @Autowired
+    private TicketQueryServer server;
+
+    private final HttpClient client = HttpClient.newHttpClient();
+
+    @TempDir
+    private Path tempDir;
+
+    @Test
+    void analysisShouldReturnRouteResultInMinutes() throws IOException, InterruptedException {
+        Path testFile = createRouteTicketsFile();
+        HttpResponse<String> response = get("/analysis?path=" + encode(testFile.toString()));
+        assertEquals(200, response.statusCode());
+        assertTrue(response.body().contains("\"differenceBetweenAverageAndMedianPrice\":5000.00"), response.body());
+        assertTrue(response.body().contains("\"SU\":360"), response.body());
+
+        HttpResponse<String> otherRoute = get("/analysis?path=" + encode(testFile.toString())
+                + "&origin=LED&destination=TLV");
+        assertEquals(200, otherRoute.statusCode());
+        assertTrue(otherRoute.body().contains("\"SU\":60"), otherRoute.body());
+    }
+
+    @Test
+    void concurrentClientsShouldAllBeServed() throws IOException {
+        Path testFile = createRouteTicketsFile();
+        List<CompletableFuture<HttpResponse<String>>> responses = IntStream.range(0, 16)
+                .mapToObj(i -> client.sendAsync(request("/analysis?path=" + encode(testFile.toString())),
+                        HttpResponse.BodyHandlers.ofString()))
+                .toList();
+        for (CompletableFuture<HttpResponse<String>> response : responses) {
+            assertEquals(200, response.join().statusCode());
+        }
+    }
+
+    @Test
+    void routeWithoutTicketsShouldReturnNotFound() throws IOException, InterruptedException {
+        Path testFile = createRouteTicketsFile();
+        HttpResponse<String> response = get("/analysis?path=" + encode(testFile.toString())
+                + "&origin=VVO&destination=UFA");
+        assertEquals(404, response.statusCode());
+        assertTrue(response.body().contains("error"), response.body());
+    }
+
+    @Test
+    void invalidRequestsShouldReturnErrors() throws IOException, InterruptedException {
+        assertEquals(400, get("/analysis").statusCode());
+        assertEquals(404, get("/analysis?path=" + encode("non_existent_file.json")).statusCode());
+        assertEquals(200, get("/metrics").statusCode());
+    }
+
+    private HttpResponse<String> get(String uri) throws IOException, InterruptedException {
+        return client.send(request(uri), HttpResponse.BodyHandlers.ofString());
+    }
+
+    private HttpRequest request(String uri) {
+        return HttpRequest.newBuilder(URI.create("http://127.0.0.1:" + server.getPort() + uri)).GET().build();
+    }
+
+    private static String encode(String value) {
+        return URLEncoder.encode(value, StandardCharsets.UTF_8);
+    }
+
+    private Path createRouteTicketsFile() throws IOException {
+        Path testFile = Files.createTempFile(tempDir, "test_tickets", ".json");
+        Files.writeString(testFile, """
+        {
+          "tickets": [
+            {"origin": "VVO", "destination": "TLV", "departure_date": "12.05.18", "departure_time": "10:00",
+             "arrival_date": "12.05.18", "arrival_time": "18:00", "carrier": "SU", "price": 10000},
+            {"origin": "VVO", "destination": "TLV", "departure_date": "12.05.18", "departure_time": "11:00",
+             "arrival_date": "12.05.18", "arrival_time": "17:00", "carrier": "SU", "price": 15000},
+            {"origin": "VVO", "destination": "TLV", "departure_date": "12.05.18", "departure_time": "09:00",
+             "arrival_date": "12.05.18", "arrival_time": "21:00", "carrier": "TK", "price": 35000},
+            {"origin": "LED", "destination": "TLV", "departure_date": "12.05.18", "departure_time": "08:00",
+             "arrival_date": "12.05.18", "arrival_time": "09:00", "carrier": "SU", "price": 99000}
+          ]
+        }
+        """);
+        return testFile;
+    }
+}
@@ -0,0 +1,105 @@
+package ru.anikeev.tickets.services.analysis;
+
+import org.junit.jupiter.api.Test;
+import ru.anikeev.tickets.dto.DurationStats;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CarrierDurationStatsTest {
+
+    @Test
+    void statisticsShouldMatchExactValuesForFlightDurations() {
+        Random random = new Random(11);
+        long[] minutes = random.longs(10_001, 30, 2_000).toArray();
+        CarrierDurationStats durations = new CarrierDurationStats();
+        for (long value : minutes) {
+            durations.record("SU", value);
+        }
+
+        long[] sorted = minutes.clone();
+        Arrays.sort(sorted);
+        DurationStats stats = durations.statistics().get("SU");
+        assertEquals(minutes.length, stats.getCount());
+        assertEquals(Duration.ofMinutes(sorted[0]), stats.getMin());
+        assertEquals(Duration.ofMinutes(sorted[sorted.length - 1]), stats.getMax());
+        assertEquals(Duration.ofMinutes(Arrays.stream(minutes).sum()).dividedBy(minutes.length), stats.getMean());
+        assertEquals(Duration.ofMinutes(sorted[5_000]), stats.getP50());
+        assertEquals(Duration.ofMinutes(sorted[9_500]), stats.getP95());
+    }
+
+    @Test
+    void percentilesOfLongDurationsShouldStayWithinRelativeError() {
+        Random random = new Random(5);
+        long[] minutes = random.longs(50_000, 2_000, 200_000).toArray();
+        CarrierDurationStats durations = new CarrierDurationStats();
+        for (long value : minutes) {
+            durations.record("TK", value);
+        }
+
+        long[] sorted = minutes.clone();
+        Arrays.sort(sorted);
+        DurationStats stats = durations.statistics().get("TK");
+        assertEquals(sorted[24_999], stats.getP50().toMinutes(), sorted[24_999] * 0.001);
+        assertEquals(sorted[47_499], stats.getP95().toMinutes(), sorted[47_499] * 0.001);
+    }
+
+    @Test
+    void mergedStatisticsShouldMatchSinglePass() {
+        Random random = new Random(17);
+        CarrierDurationStats single = new CarrierDurationStats();
+        CarrierDurationStats first = new CarrierDurationStats();
+        CarrierDurationStats second = new CarrierDurationStats();
+        String[] carriers = {"SU", "TK", "S7"};
+        for (int i = 0; i < 5_000; i++) {
+            String carrier = carriers[random.nextInt(carriers.length)];
+            long value = random.nextInt(1_500);
+            single.record(carrier, value);
+            (i % 2 == 0 ? first : second).record(carrier, value);
+        }
+        second.record("BA", 90);
+        single.record("BA", 90);
+
+        first.merge(second);
+        assertEquals(single.statistics(), first.statistics());
+        assertEquals(single.minDurations(), first.minDurations());
+    }
+
+    @Test
+    void percentilesShouldBeRecalculatedAfterRecordAndMerge() {
+        CarrierDurationStats durations = new CarrierDurationStats();
+        durations.record("SU", 100);
+        durations.record("TK", 300);
+        assertEquals(Duration.ofMinutes(100), durations.statistics().get("SU").getP95());
+
+        durations.record("SU", 500);
+        durations.record("SU", 500);
+        Map<String, DurationStats> updated = durations.statistics();
+        assertEquals(Duration.ofMinutes(500), updated.get("SU").getP50());
+        assertEquals(Duration.ofMinutes(300), updated.get("TK").getP50());
+
+        CarrierDurationStats other = new CarrierDurationStats();
+        other.record("TK", 900);
+        other.record("TK", 900);
+        durations.merge(other);
+        assertEquals(Duration.ofMinutes(900), durations.statistics().get("TK").getP50());
+        assertEquals(updated.get("SU"), durations.statistics().get("SU"));
+    }
+
+    @Test
+    void negativeDurationsShouldBeKeptInMinimumAndMean() {
+        CarrierDurationStats durations = new CarrierDurationStats();
+        durations.record("SU", -60);
+        durations.record("SU", 120);
+
+        Map<String, DurationStats> statistics = durations.statistics();
+        assertEquals(Duration.ofMinutes(-60), statistics.get("SU").getMin());
+        assertEquals(Duration.ofMinutes(30), statistics.get("SU").getMean());
+        assertEquals(Duration.ZERO, statistics.get("SU").getP50(), "В перцентилях отрицательное время учитывается как ноль");
+        assertEquals(Duration.ofMinutes(-60), durations.minDurations().get("SU"));
+    }
+}
@@ -0,0 +1,76 @@
+package ru.anikeev.tickets.services.analysis;
+
+import org.junit.jupiter.api.Test;
+import ru.anikeev.tickets.entities.PriceCents;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MedianSelectorTest {
+
+    @Test
+    void medianShouldMatchSortedMedianForOddAndEvenSizes() {
+        Random random = new Random(42);
+        for (int size = 1; size < 200; size++) {
+            long[] prices = random.longs(size, 1, 500).toArray();
+            assertEquals(sortedMedian(prices), MedianSelector.median(prices.clone()),
+                    "Неверная медиана для размера " + size);
+        }
+    }
+
+    @Test
+    void parallelMedianShouldMatchSortedMedian() {
+        Random random = new Random(7);
+        long[] prices = random.longs(300_001, 100_00, 2_000_000_00).toArray();
+        long[] withDuplicates = random.longs(300_000, 1, 50).toArray();
+
+        assertEquals(sortedMedian(prices), MedianSelector.parallelMedian(prices, ForkJoinPool.commonPool()));
+        assertEquals(sortedMedian(withDuplicates),
+                MedianSelector.parallelMedian(withDuplicates, ForkJoinPool.commonPool()));
+    }
+
+    @Test
+    void streamingMedianShouldMatchSortedMedianAfterEveryAdd() {
+        Random random = new Random(3);
+        StreamingMedian streamingMedian = new StreamingMedian();
+        long[] prices = random.longs(500, 1, 100).toArray();
+        for (int i = 0; i < prices.length; i++) {
+            streamingMedian.add(prices[i]);
+            assertEquals(sortedMedian(Arrays.copyOf(prices, i + 1)), streamingMedian.median());
+        }
+    }
+
+    @Test
+    void histogramShouldEstimateMedianWithinRelativeError() {
+        LogLinearHistogram histogram = new LogLinearHistogram(3);
+        Random random = new Random(1);
+        long[] values = random.longs(100_001, 1, 10_000_000).toArray();
+        for (long value : values) {
+            histogram.record(value);
+        }
+
+        long[] sorted = values.clone();
+        Arrays.sort(sorted);
+        long exact = sorted[sorted.length / 2];
+        long estimate = histogram.valueAtRank(sorted.length / 2);
+        assertTrue(Math.abs(estimate - exact) <= exact / 1000, "Погрешность медианы больше 0.1%");
+        assertEquals(sorted[0], histogram.min());
+        assertEquals(sorted[sorted.length - 1], histogram.max());
+    }
+
+    private BigDecimal sortedMedian(long[] prices) {
+        long[] sorted = prices.clone();
+        Arrays.sort(sorted);
+        int size = sorted.length;
+        if (size % 2 == 1) {
+            return PriceCents.toPrice(sorted[size / 2]);
+        }
+        return PriceCents.toPrice(sorted[size / 2 - 1]).add(PriceCents.toPrice(sorted[size / 2]))
+                .divide(BigDecimal.valueOf(2), 2, RoundingMode.HALF_UP);
+    }
+}
@@ -0,0 +1,88 @@
+package ru.anikeev.tickets.services.analysis;
+
+import org.junit.jupiter.api.Test;
+import ru.anikeev.tickets.entities.PriceCents;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PriceSumTest {
+
+    @Test
+    void averageShouldMatchBigDecimalHalfUp() {
+        Random random = new Random(42);
+        for (int size = 1; size < 300; size++) {
+            PriceSum sum = new PriceSum();
+            BigDecimal expected = BigDecimal.ZERO;
+            for (int i = 0; i < size; i++) {
+                BigDecimal price = BigDecimal.valueOf(random.nextInt(10_000_000), random.nextInt(3));
+                sum.add(price);
+                expected = expected.add(price);
+            }
+            assertTrue(sum.isFixedPoint());
+            assertEquals(expected.divide(BigDecimal.valueOf(size), 2, RoundingMode.HALF_UP), sum.average(size));
+        }
+    }
+
+    @Test
+    void sumShouldFallBackToBigDecimalOnOverflowAndExtraScale() {
+        PriceSum overflow = new PriceSum();
+        BigDecimal large = PriceCents.toPrice(Long.MAX_VALUE - 1);
+        overflow.add(large);
+        overflow.add(large);
+        assertFalse(overflow.isFixedPoint(), "При переполнении сумма должна перейти на BigDecimal");
+        assertEquals(large.add(large), overflow.total());
+        assertEquals(large, overflow.average(2));
+
+        PriceSum precise = new PriceSum();
+        precise.add(new BigDecimal("10.5"));
+        precise.add(new BigDecimal("0.125"));
+        assertFalse(precise.isFixedPoint());
+        assertEquals(new BigDecimal("5.31"), precise.average(2));
+
+        PriceSum merged = new PriceSum();
+        merged.add(new BigDecimal("1.00"));
+        merged.merge(precise);
+        assertEquals(new BigDecimal("11.625"), merged.total());
+    }
+
+    @Test
+    void divideHalfUpShouldRoundHalfAwayFromZero() {
+        assertEquals(3, PriceCents.divideHalfUp(5, 2));
+        assertEquals(-3, PriceCents.divideHalfUp(-5, 2));
+        assertEquals(2, PriceCents.divideHalfUp(7, 3));
+        assertEquals(-2, PriceCents.divideHalfUp(7, -3));
+        assertThrows(ArithmeticException.class, () -> PriceCents.divideHalfUp(1, 0));
+    }
+
+    @Test
+    void accumulatorShouldKeepPricesWhenSwitchingToBigDecimal() {
+        TicketAccumulator accumulator = new TicketAccumulator();
+        List<BigDecimal> prices = new ArrayList<>();
+        for (int i = 0; i < 40; i++) {
+            prices.add(BigDecimal.valueOf(100 + i));
+        }
+        prices.add(new BigDecimal("12.345"));
+        prices.forEach(price -> accumulator.add(price, "SU", Duration.ofHours(1)));
+
+        assertNull(accumulator.getPricesInCents(), "Цена с тремя знаками не выражается в копейках");
+        List<BigDecimal> stored = accumulator.getPrices();
+        assertEquals(prices.size(), stored.size());
+        for (int i = 0; i < prices.size(); i++) {
+            assertEquals(0, prices.get(i).compareTo(stored.get(i)), "Цена " + i + " изменилась");
+        }
+
+        TicketAccumulator other = new TicketAccumulator();
+        other.add(new BigDecimal("99.99"), "TK", Duration.ofHours(2));
+        assertArrayEquals(new long[]{9999}, other.getPricesInCents());
+        accumulator.merge(other);
+        assertEquals(new BigDecimal("99.99"), accumulator.getPrices().get(41));
+        assertEquals(42, accumulator.getCount());
+    }
+}
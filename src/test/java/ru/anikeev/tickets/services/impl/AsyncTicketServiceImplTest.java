@@ -0,0 +1,113 @@
+package ru.anikeev.tickets.services.impl;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import ru.anikeev.tickets.dto.TicketDTO;
+import ru.anikeev.tickets.services.TicketService;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class AsyncTicketServiceImplTest {
+    private final ExecutorService executor = Executors.newFixedThreadPool(4);
+    private final CountDownLatch release = new CountDownLatch(1);
+    private final TicketDTO result = TicketDTO.builder()
+            .differenceBetweenAverageAndMedianPrice(BigDecimal.ONE)
+            .mapMinTimeBetweenOriginDist(Map.of())
+            .build();
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        executor.shutdownNow();
+    }
+
+    @Test
+    void concurrentIdenticalRequestsShouldBeCoalesced() throws Exception {
+        TicketService ticketService = blockingTicketService();
+        AsyncTicketServiceImpl asyncService = new AsyncTicketServiceImpl(ticketService, executor, "VVO", "TLV", 8);
+
+        List<CompletableFuture<TicketDTO>> futures = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            futures.add(asyncService.resultOfAnalysAsync("tickets.json"));
+        }
+        assertEquals(9, asyncService.getCoalescedCount(), "Повторные запросы должны присоединиться к расчету");
+        release.countDown();
+
+        for (CompletableFuture<TicketDTO> future : futures) {
+            assertEquals(result, future.get(5, TimeUnit.SECONDS));
+        }
+        verify(ticketService, times(1)).resultOfAnalys("tickets.json", "VVO", "TLV");
+        assertEquals(0, asyncService.getInFlightCount(), "Завершенный расчет должен быть удален");
+    }
+
+    @Test
+    void coalescedRequestsShouldReceiveIndependentResults() throws Exception {
+        TicketService ticketService = blockingTicketService();
+        AsyncTicketServiceImpl asyncService = new AsyncTicketServiceImpl(ticketService, executor, "VVO", "TLV", 8);
+
+        CompletableFuture<TicketDTO> first = asyncService.resultOfAnalysAsync("tickets.json");
+        CompletableFuture<TicketDTO> second = asyncService.resultOfAnalysAsync("tickets.json");
+        release.countDown();
+
+        TicketDTO firstResult = first.get(5, TimeUnit.SECONDS);
+        TicketDTO secondResult = second.get(5, TimeUnit.SECONDS);
+        assertNotSame(firstResult, secondResult, "Объединенные запросы не должны делить один результат");
+        firstResult.setDifferenceBetweenAverageAndMedianPrice(BigDecimal.TEN);
+
+        assertEquals(BigDecimal.ONE, secondResult.getDifferenceBetweenAverageAndMedianPrice());
+        assertEquals(BigDecimal.ONE, result.getDifferenceBetweenAverageAndMedianPrice());
+        verify(ticketService, times(1)).resultOfAnalys("tickets.json", "VVO", "TLV");
+    }
+
+    @Test
+    void requestsAboveLimitShouldBeRejectedWithoutBlocking() throws Exception {
+        TicketService ticketService = blockingTicketService();
+        AsyncTicketServiceImpl asyncService = new AsyncTicketServiceImpl(ticketService, executor, "VVO", "TLV", 1);
+
+        CompletableFuture<TicketDTO> first = asyncService.resultOfAnalysAsync("first.json");
+        CompletableFuture<TicketDTO> second = asyncService.resultOfAnalysAsync("second.json");
+
+        Exception exception = assertThrows(Exception.class, () -> second.get(1, TimeUnit.SECONDS),
+                "Запрос сверх лимита должен сразу завершиться отказом");
+        assertInstanceOf(RejectedExecutionException.class, exception.getCause());
+        assertEquals(1, asyncService.getInFlightCount(), "Отклоненный запрос не должен оставаться в работе");
+        release.countDown();
+
+        assertEquals(result, first.get(5, TimeUnit.SECONDS));
+        assertEquals(result, asyncService.resultOfAnalysAsync("second.json").get(5, TimeUnit.SECONDS),
+                "После освобождения места запрос должен выполняться");
+    }
+
+    @Test
+    void failedAnalysisShouldCompleteFutureExceptionally() {
+        TicketService ticketService = mock(TicketService.class);
+        when(ticketService.resultOfAnalys(any(), any(), any())).thenThrow(new ArithmeticException("empty"));
+        AsyncTicketServiceImpl asyncService = new AsyncTicketServiceImpl(ticketService, executor, "VVO", "TLV", 8);
+
+        CompletableFuture<TicketDTO> future = asyncService.resultOfAnalysAsync("tickets.json");
+        Exception exception = assertThrows(Exception.class, () -> future.get(5, TimeUnit.SECONDS));
+        assertInstanceOf(ArithmeticException.class, exception.getCause());
+    }
+
+    private TicketService blockingTicketService() {
+        TicketService ticketService = mock(TicketService.class);
+        when(ticketService.resultOfAnalys(any(), any(), any())).thenAnswer(invocation -> {
+            release.await();
+            return result;
+        });
+        return ticketService;
+    }
+}
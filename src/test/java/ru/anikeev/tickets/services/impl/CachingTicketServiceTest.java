@@ -0,0 +1,124 @@
+package ru.anikeev.tickets.services.impl;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestConstructor;
+import ru.anikeev.tickets.dto.TicketDTO;
+import ru.anikeev.tickets.services.TicketService;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Instant;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@ActiveProfiles("test")
+@TestConstructor(autowireMode = TestConstructor.AutowireMode.ALL)
+class CachingTicketServiceTest {
+    @Autowired
+    private TicketService ticketService;
+    @Autowired
+    private CachingTicketService cachingTicketService;
+
+    @TempDir
+    private Path tempDir;
+    private Path testFile;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        cachingTicketService.invalidateAll();
+        testFile = Files.createTempFile(tempDir, "test_tickets", ".json");
+        writeTickets("10000", "20000", "60000");
+    }
+
+    @Test
+    void ticketServiceShouldBeCachingWrapper() {
+        assertSame(cachingTicketService, ticketService);
+    }
+
+    @Test
+    void resultOfAnalysShouldReturnCachedResultForUnchangedFile() {
+        long hits = cachingTicketService.getHitCount();
+        long misses = cachingTicketService.getMissCount();
+
+        TicketDTO first = ticketService.resultOfAnalys(testFile.toString());
+        TicketDTO second = ticketService.resultOfAnalys(testFile.toString());
+
+        assertEquals(first, second);
+        assertEquals(misses + 1, cachingTicketService.getMissCount());
+        assertEquals(hits + 1, cachingTicketService.getHitCount());
+    }
+
+    @Test
+    void cachedResultShouldNotBeChangedByCallers() {
+        TicketDTO first = ticketService.resultOfAnalys(testFile.toString());
+        TicketDTO expected = ticketService.resultOfAnalys(testFile.toString());
+        first.setDifferenceBetweenAverageAndMedianPrice(BigDecimal.ONE);
+        first.getMapDurationStatsByCarrier().get("SU").setCount(-1);
+
+        TicketDTO second = ticketService.resultOfAnalys(testFile.toString());
+        assertNotSame(expected, second);
+        assertEquals(expected, second);
+        assertThrows(UnsupportedOperationException.class, () -> second.getMapMinTimeBetweenOriginDist().clear());
+    }
+
+    @Test
+    void resultOfAnalysShouldRecalculateWhenFileChanges() throws IOException {
+        TicketDTO first = ticketService.resultOfAnalys(testFile.toString());
+        assertEquals(new BigDecimal("10000.00"), first.getDifferenceBetweenAverageAndMedianPrice());
+
+        writeTickets("10000", "20000", "30000");
+        Files.setLastModifiedTime(testFile, FileTime.from(Instant.now().plusSeconds(60)));
+        TicketDTO second = ticketService.resultOfAnalys(testFile.toString());
+
+        assertEquals(0, BigDecimal.ZERO.compareTo(second.getDifferenceBetweenAverageAndMedianPrice()));
+        assertEquals(1, cachingTicketService.size());
+    }
+
+    @Test
+    void resultOfAnalysShouldRecalculateWhenSameSizeRewriteKeepsModificationTime() throws IOException {
+        FileTime modified = FileTime.from(Instant.parse("2024-01-01T00:00:00Z"));
+        Files.setLastModifiedTime(testFile, modified);
+        TicketDTO first = ticketService.resultOfAnalys(testFile.toString());
+        assertEquals(new BigDecimal("10000.00"), first.getDifferenceBetweenAverageAndMedianPrice());
+
+        long size = Files.size(testFile);
+        writeTickets("10000", "20000", "30000");
+        Files.setLastModifiedTime(testFile, modified);
+        assertEquals(size, Files.size(testFile), "Перезапись должна сохранить размер файла");
+
+        TicketDTO second = ticketService.resultOfAnalys(testFile.toString());
+        assertEquals(0, BigDecimal.ZERO.compareTo(second.getDifferenceBetweenAverageAndMedianPrice()));
+    }
+
+    @Test
+    void resultOfAnalysShouldCacheRoutesSeparately() {
+        ticketService.resultOfAnalys(testFile.toString(), "VVO", "TLV");
+        ticketService.resultOfAnalys(testFile.toString(), "LED", "TLV");
+        assertEquals(2, cachingTicketService.size());
+    }
+
+    private void writeTickets(String... prices) throws IOException {
+        StringBuilder json = new StringBuilder("{\"tickets\": [");
+        for (int i = 0; i < prices.length; i++) {
+            if (i > 0) {
+                json.append(',');
+            }
+            json.append("""
+                    {"origin": "VVO", "destination": "TLV", "departure_date": "12.05.18", "departure_time": "10:00",
+                     "arrival_date": "12.05.18", "arrival_time": "18:00", "carrier": "SU", "price": %s}""".formatted(prices[i]));
+        }
+        json.append("""
+                ,{"origin": "LED", "destination": "TLV", "departure_date": "12.05.18", "departure_time": "10:00",
+                 "arrival_date": "12.05.18", "arrival_time": "18:00", "carrier": "S7", "price": 50000}]}""");
+        Files.writeString(testFile, json);
+    }
+}
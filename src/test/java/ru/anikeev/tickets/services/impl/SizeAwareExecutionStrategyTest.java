@@ -0,0 +1,43 @@
+package ru.anikeev.tickets.services.impl;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SizeAwareExecutionStrategyTest {
+    private final ForkJoinPool forkJoinPool = new ForkJoinPool(4);
+    private final List<Integer> items = IntStream.range(0, 100_000).boxed().toList();
+
+    @AfterEach
+    void tearDown() {
+        forkJoinPool.shutdownNow();
+    }
+
+    @Test
+    void smallListShouldBeProcessedInCallerThread() {
+        SizeAwareExecutionStrategy strategy = new SizeAwareExecutionStrategy(forkJoinPool, items.size() + 1);
+        Set<Thread> threads = strategy.collect(items,
+                Collectors.mapping(item -> Thread.currentThread(), Collectors.toSet()));
+        assertEquals(Set.of(Thread.currentThread()), threads);
+    }
+
+    @Test
+    void largeListShouldBeProcessedInDedicatedPool() {
+        SizeAwareExecutionStrategy strategy = new SizeAwareExecutionStrategy(forkJoinPool, 1000);
+        Set<Thread> threads = strategy.collect(items,
+                Collectors.mapping(item -> Thread.currentThread(), Collectors.toSet()));
+        assertFalse(threads.contains(Thread.currentThread()), "Вызывающий поток не должен обрабатывать элементы");
+        threads.forEach(thread -> assertFalse(thread.getName().contains("commonPool"),
+                "Общий пул не должен использоваться"));
+
+        long sum = strategy.collect(items, Collectors.summingLong(Integer::longValue));
+        assertEquals(100_000L * 99_999 / 2, sum);
+    }
+}
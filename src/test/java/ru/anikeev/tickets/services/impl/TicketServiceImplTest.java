@@ -1,23 +1,41 @@
 package ru.anikeev.tickets.services.impl;
 
 
+import io.micrometer.core.instrument.MeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.TestConstructor;
+import ru.anikeev.tickets.dto.DurationStats;
+import ru.anikeev.tickets.dto.RouteKey;
 import ru.anikeev.tickets.dto.TicketDTO;
 import ru.anikeev.tickets.entities.Ticket;
+import ru.anikeev.tickets.entities.TicketTableIndex;
+import ru.anikeev.tickets.metrics.TicketMetrics;
+import ru.anikeev.tickets.repositories.JsonReader;
+import ru.anikeev.tickets.repositories.TicketTableReader;
+import ru.anikeev.tickets.repositories.imp.DateTimeCache;
+import ru.anikeev.tickets.services.EmptyRouteException;
+import ru.anikeev.tickets.services.ExecutionStrategy;
 import ru.anikeev.tickets.services.TicketServiceInternal;
+import ru.anikeev.tickets.services.analysis.IncrementalTicketAnalyzer;
 
 import java.io.IOException;
 import java.math.BigDecimal;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -27,6 +45,22 @@ import static org.junit.jupiter.api.Assertions.*;
 class TicketServiceImplTest {
     @Autowired
     private TicketServiceInternal ticketService;
+    @Autowired
+    private TicketTableReader ticketTableReader;
+    @Autowired
+    private TicketMetrics ticketMetrics;
+    @Autowired
+    private MeterRegistry meterRegistry;
+    @Autowired
+    private JsonReader jsonReader;
+    @Autowired
+    private ExecutionStrategy executionStrategy;
+    @Autowired
+    @Qualifier("ticketsForkJoinPool")
+    private ForkJoinPool forkJoinPool;
+
+    @TempDir
+    private Path tempDir;
 
     private List<Ticket> testTickets;
     private List<Ticket> mixedOriginDestinationTickets;
@@ -60,7 +94,7 @@ class TicketServiceImplTest {
 
     @Test
     void resultOfAnalysShouldReturnCorrectDto() throws IOException {
-        Path testFile = Files.createTempFile("test_tickets", ".json");
+        Path testFile = tempDir.resolve("tickets.json");
         Files.writeString(testFile, """
         {
           "tickets": [
@@ -80,8 +114,232 @@ class TicketServiceImplTest {
 
         TicketDTO result = ticketService.resultOfAnalys(testFile.toString());
         assertNotNull(result);
+    }
+
+    @Test
+    void resultOfAnalysShouldAggregateOnlyRouteTickets() throws IOException {
+        Path testFile = createRouteTicketsFile();
+
+        TicketDTO result = ticketService.resultOfAnalys(testFile.toString());
+        assertEquals(new BigDecimal("5000.00"), result.getDifferenceBetweenAverageAndMedianPrice());
+        assertEquals(Duration.ofHours(6), result.getMapMinTimeBetweenOriginDist().get("SU"));
+        assertEquals(Duration.ofHours(12), result.getMapMinTimeBetweenOriginDist().get("TK"));
+
+        DurationStats su = result.getMapDurationStatsByCarrier().get("SU");
+        assertEquals(2, su.getCount());
+        assertEquals(Duration.ofHours(8), su.getMax());
+        assertEquals(Duration.ofHours(7), su.getMean());
+        assertEquals(Duration.ofHours(6), su.getP50());
+        assertEquals(Duration.ofHours(8), su.getP95());
+    }
+
+    @Test
+    void resultOfAnalysShouldRecordStageTimersAndCounters() throws IOException {
+        Path testFile = createRouteTicketsFile();
+        double read = meterRegistry.counter("tickets.read").count();
+        double matched = meterRegistry.counter("tickets.matched").count();
+        double bytes = meterRegistry.counter("tickets.bytes.read").count();
+        long parsed = meterRegistry.timer("tickets.stage", "stage", "parse").count();
+        long medians = meterRegistry.timer("tickets.stage", "stage", "median").count();
+
+        ticketService.resultOfAnalys(testFile.toString());
+        assertEquals(read + 4, meterRegistry.counter("tickets.read").count());
+        assertEquals(matched + 3, meterRegistry.counter("tickets.matched").count());
+        assertEquals(bytes + Files.size(testFile), meterRegistry.counter("tickets.bytes.read").count(), 1);
+        assertEquals(parsed + 1, meterRegistry.timer("tickets.stage", "stage", "parse").count());
+        assertEquals(medians + 1, meterRegistry.timer("tickets.stage", "stage", "median").count());
+
+        Path report = tempDir.resolve("tickets_metrics.txt");
+        ticketMetrics.writeTo(report);
+        assertTrue(Files.readString(report).contains("tickets.stage{stage=parse}"));
+    }
+
+    @Test
+    void resultOfCompactAnalysShouldMatchResultOfAnalys() throws IOException {
+        Path testFile = createRouteTicketsFile();
+
+        TicketDTO expected = ticketService.resultOfAnalys(testFile.toString());
+        TicketDTO result = ticketService.resultOfCompactAnalys(testFile.toString());
+        assertEquals(expected.getDifferenceBetweenAverageAndMedianPrice(),
+                result.getDifferenceBetweenAverageAndMedianPrice());
+        assertEquals(expected.getMapMinTimeBetweenOriginDist(), result.getMapMinTimeBetweenOriginDist());
+        assertEquals(expected.getMapDurationStatsByCarrier(), result.getMapDurationStatsByCarrier());
+    }
+
+    @Test
+    void resultOfTableAnalysShouldMatchResultOfAnalys() throws IOException {
+        Path testFile = createRouteTicketsFile();
+
+        TicketDTO expected = ticketService.resultOfAnalys(testFile.toString());
+        TicketDTO result = ticketService.resultOfTableAnalys(ticketTableReader.readTableByPath(testFile.toString()));
+        assertEquals(expected.getDifferenceBetweenAverageAndMedianPrice(),
+                result.getDifferenceBetweenAverageAndMedianPrice());
+        assertEquals(expected.getMapMinTimeBetweenOriginDist(), result.getMapMinTimeBetweenOriginDist());
+        assertEquals(expected.getMapDurationStatsByCarrier(), result.getMapDurationStatsByCarrier());
+    }
+
+    @Test
+    void resultOfIndexAnalysShouldMatchResultOfAnalys() throws IOException {
+        Path testFile = createRouteTicketsFile();
+
+        TicketTableIndex index = ticketTableReader.readIndexedTable(testFile.toString());
+        assertEquals(ticketService.resultOfTableAnalys(index.table()), ticketService.resultOfIndexAnalys(index));
+        assertEquals(ticketService.resultOfAnalys(testFile.toString(), "LED", "TLV"),
+                ticketService.resultOfIndexAnalys(index, "LED", "TLV"));
+    }
+
+    @Test
+    void resultOfWindowAnalysShouldAnalyseOnlyTicketsDepartingInWindow() throws IOException {
+        Path testFile = createRouteTicketsFile();
+
+        TicketTableIndex index = ticketTableReader.readIndexedTable(testFile.toString());
+        TicketDTO morning = ticketService.resultOfWindowAnalys(index, "VVO", "TLV",
+                LocalDateTime.of(2018, 5, 12, 9, 30), LocalDateTime.of(2018, 5, 12, 11, 0));
+        assertEquals(0, BigDecimal.ZERO.compareTo(morning.getDifferenceBetweenAverageAndMedianPrice()));
+        assertEquals(Map.of("SU", Duration.ofHours(8)), morning.getMapMinTimeBetweenOriginDist());
+
+        assertEquals(ticketService.resultOfIndexAnalys(index, "VVO", "TLV"),
+                ticketService.resultOfWindowAnalys(index, "VVO", "TLV",
+                        LocalDateTime.of(2018, 5, 12, 0, 0), LocalDateTime.of(2018, 5, 13, 0, 0)));
+    }
+
+    @Test
+    void resultOfWindowAnalysShouldIncludeWindowStartAndExcludeWindowEnd() throws IOException {
+        Path testFile = createRouteTicketsFile();
+        TicketTableIndex index = ticketTableReader.readIndexedTable(testFile.toString());
+
+        TicketDTO fromTen = ticketService.resultOfWindowAnalys(index, "VVO", "TLV",
+                LocalDateTime.of(2018, 5, 12, 10, 0), LocalDateTime.of(2018, 5, 12, 11, 0));
+        assertEquals(Map.of("SU", Duration.ofHours(8)), fromTen.getMapMinTimeBetweenOriginDist(),
+                "Вылет в начале окна учитывается, вылет в конце окна - нет");
+
+        TicketDTO lastMinute = ticketService.resultOfWindowAnalys(index, "VVO", "TLV",
+                LocalDateTime.of(2018, 5, 12, 10, 1), LocalDateTime.of(2018, 5, 12, 11, 1));
+        assertEquals(Map.of("SU", Duration.ofHours(6)), lastMinute.getMapMinTimeBetweenOriginDist());
+
+        TicketDTO wholeSpread = ticketService.resultOfWindowAnalys(index, "VVO", "TLV",
+                LocalDateTime.of(2018, 5, 12, 9, 0), LocalDateTime.of(2018, 5, 12, 11, 1));
+        assertEquals(ticketService.resultOfIndexAnalys(index, "VVO", "TLV"), wholeSpread);
+
+        assertThrows(EmptyRouteException.class, () -> ticketService.resultOfWindowAnalys(index, "VVO", "TLV",
+                LocalDateTime.of(2018, 5, 12, 8, 0), LocalDateTime.of(2018, 5, 12, 9, 0)));
+        assertThrows(EmptyRouteException.class, () -> ticketService.resultOfWindowAnalys(index, "VVO", "TLV",
+                LocalDateTime.of(2018, 5, 12, 10, 0), LocalDateTime.of(2018, 5, 12, 10, 0)));
+    }
+
+    @Test
+    void resultOfAnalysByRoutesShouldAnalyseEveryRouteInOnePass() throws IOException {
+        Path testFile = createRouteTicketsFile();
+
+        Map<RouteKey, TicketDTO> result = ticketService.resultOfAnalysByRoutes(testFile.toString());
+        assertEquals(2, result.size());
+        TicketDTO expected = ticketService.resultOfAnalys(testFile.toString());
+        assertEquals(expected, result.get(new RouteKey("VVO", "TLV")));
+        TicketDTO ledToTlv = result.get(new RouteKey("LED", "TLV"));
+        assertEquals(0, BigDecimal.ZERO.compareTo(ledToTlv.getDifferenceBetweenAverageAndMedianPrice()));
+        assertEquals(Duration.ofHours(1), ledToTlv.getMapMinTimeBetweenOriginDist().get("SU"));
+
+        Map<RouteKey, TicketDTO> requested = ticketService.resultOfAnalysByRoutes(testFile.toString(),
+                Set.of(new RouteKey("LED", "TLV"), new RouteKey("VVO", "UFA")));
+        assertEquals(Set.of(new RouteKey("LED", "TLV")), requested.keySet());
+    }
+
+    @Test
+    void incrementalAnalyzerShouldUpdateResultsWithEveryFile() throws IOException {
+        Path testFile = createRouteTicketsFile();
+        IncrementalTicketAnalyzer analyzer = ticketService.createIncrementalAnalyzer("VVO", "TLV");
+        assertThrows(EmptyRouteException.class, analyzer::snapshot);
+
+        analyzer.addFile(testFile.toString());
+        assertEquals(3, analyzer.getCount());
+        assertEquals(ticketService.resultOfAnalys(testFile.toString()), analyzer.snapshot());
+
+        analyzer.addFile(testFile.toString());
+        TicketDTO result = analyzer.snapshot();
+        assertEquals(6, analyzer.getCount());
+        assertEquals(new BigDecimal("5000.00"), result.getDifferenceBetweenAverageAndMedianPrice());
+        assertEquals(Duration.ofHours(6), result.getMapMinTimeBetweenOriginDist().get("SU"));
+    }
+
+    @Test
+    void incrementalAnalyzerWithoutRouteTicketsShouldThrowEmptyRouteException() throws IOException {
+        Path testFile = createRouteTicketsFile();
+        IncrementalTicketAnalyzer analyzer = ticketService.createIncrementalAnalyzer("VVO", "UFA");
+
+        analyzer.addFile(testFile.toString());
+        assertEquals(0, analyzer.getCount());
+        assertThrows(EmptyRouteException.class, analyzer::snapshot);
+    }
+
+    @Test
+    void resultOfAnalysFilesShouldMergeShardsFromDirectoryGlobAndList() throws IOException {
+        Path directory = Files.createDirectory(tempDir.resolve("shards"));
+        Path first = directory.resolve("tickets-1.json");
+        Path second = directory.resolve("tickets-2.json");
+        Path other = directory.resolve("other.txt");
+        Path single = createRouteTicketsFile();
+        Files.writeString(first, """
+                {"tickets": [
+                  {"origin": "VVO", "destination": "TLV", "departure_date": "12.05.18", "departure_time": "10:00",
+                   "arrival_date": "12.05.18", "arrival_time": "18:00", "carrier": "SU", "price": 10000},
+                  {"origin": "LED", "destination": "TLV", "departure_date": "12.05.18", "departure_time": "08:00",
+                   "arrival_date": "12.05.18", "arrival_time": "09:00", "carrier": "SU", "price": 99000}
+                ]}
+                """);
+        Files.writeString(second, """
+                {"tickets": [
+                  {"origin": "VVO", "destination": "TLV", "departure_date": "12.05.18", "departure_time": "11:00",
+                   "arrival_date": "12.05.18", "arrival_time": "17:00", "carrier": "SU", "price": 15000},
+                  {"origin": "VVO", "destination": "TLV", "departure_date": "12.05.18", "departure_time": "09:00",
+                   "arrival_date": "12.05.18", "arrival_time": "21:00", "carrier": "TK", "price": 35000}
+                ]}
+                """);
+        Files.writeString(other, "not json");
+        TicketDTO expected = ticketService.resultOfAnalys(single.toString());
+
+        assertEquals(expected, ticketService.resultOfAnalysFiles(List.of(directory.toString())));
+        assertEquals(expected, ticketService.resultOfAnalysFiles(List.of(directory + "/tickets-*.json")));
+        assertEquals(expected, ticketService.resultOfAnalysFiles(List.of(second.toString(), first.toString())));
+    }
+
+    @Test
+    void analysisOfRouteWithoutTicketsShouldThrowEmptyRouteException() throws IOException {
+        Path testFile = createRouteTicketsFile();
+        assertThrows(EmptyRouteException.class,
+                () -> ticketService.resultOfAnalys(testFile.toString(), "VVO", "UFA"));
+        TicketTableIndex index = ticketTableReader.readIndexedTable(testFile.toString());
+        assertThrows(EmptyRouteException.class, () -> ticketService.resultOfIndexAnalys(index, "VVO", "UFA"));
+        assertThrows(EmptyRouteException.class, () -> ticketService.resultOfAnalysFiles(List.of()));
+    }
+
+    @Test
+    void analysisOfFileWithoutTicketsShouldThrowEmptyRouteException() throws IOException {
+        Path emptyFile = tempDir.resolve("empty.json");
+        Files.writeString(emptyFile, "{\"tickets\": []}");
+        Path emptyDirectory = Files.createDirectory(tempDir.resolve("empty"));
+
+        assertThrows(EmptyRouteException.class, () -> ticketService.resultOfAnalys(emptyFile.toString()));
+        assertThrows(EmptyRouteException.class, () -> ticketService.resultOfCompactAnalys(emptyFile.toString()));
+        assertThrows(EmptyRouteException.class,
+                () -> ticketService.resultOfTableAnalys(ticketTableReader.readTableByPath(emptyFile.toString())));
+        assertThrows(EmptyRouteException.class, () -> ticketService.resultOfAnalysFiles(List.of(emptyFile.toString())));
+        assertThrows(EmptyRouteException.class,
+                () -> ticketService.resultOfAnalysFiles(List.of(emptyDirectory.toString())));
+        assertEquals(Map.of(), ticketService.resultOfAnalysByRoutes(emptyFile.toString()));
+    }
 
-        Files.deleteIfExists(testFile);
+    @Test
+    void analyseTicketsShouldMatchSeparateCalculations() {
+        List<Ticket> tickets = new ArrayList<>(testTickets);
+        tickets.addAll(mixedOriginDestinationTickets);
+
+        TicketDTO result = ticketService.analyseTickets(tickets);
+        List<Ticket> routeTickets = ticketService.filterOriginToDestination(tickets);
+
+        assertEquals(ticketService.findDifferrenceBetwenAverageAndMedian(routeTickets),
+                result.getDifferenceBetweenAverageAndMedianPrice());
+        assertEquals(ticketService.findMinTimeOfFlightBetweenOriginAndDistin(routeTickets),
+                result.getMapMinTimeBetweenOriginDist());
     }
 
     @Test
@@ -92,6 +350,22 @@ class TicketServiceImplTest {
         assertEquals(Duration.ofHours(12), result.get("TK"));
     }
 
+    @Test
+    void findMinTimeOfFlightBetweenOriginAndDistinShouldTruncateSecondsToWholeMinutes() {
+        DateTimeCache secondsCache = new DateTimeCache("dd.MM.yy", "H:mm:ss", DateTimeFormatter.ofPattern("H:mm:ss"), 16);
+        TicketServiceImpl secondsService = new TicketServiceImpl(jsonReader, "VVO", "TLV", secondsCache,
+                forkJoinPool, 1_000_000, 0, 0, executionStrategy, ticketMetrics);
+        List<Ticket> tickets = List.of(
+                createTestTicket("VVO", "TLV", "SU", "10000", "12.05.18", "10:00:00", "12.05.18", "16:00:59"),
+                createTestTicket("VVO", "TLV", "SU", "10000", "12.05.18", "10:00:00", "12.05.18", "16:01:00"),
+                createTestTicket("VVO", "TLV", "TK", "10000", "12.05.18", "10:00:00", "12.05.18", "10:00:59"));
+
+        Map<String, Duration> result = secondsService.findMinTimeOfFlightBetweenOriginAndDistin(tickets);
+        assertEquals(Duration.ofHours(6), result.get("SU"), "Секунды должны отбрасываться, а не округляться");
+        assertEquals(Duration.ZERO, result.get("TK"), "Полет короче минуты учитывается как ноль минут");
+        assertEquals(Duration.ofHours(6).plusSeconds(59), secondsService.calculateTicketDuration(tickets.get(0)));
+    }
+
     @Test
     void filterOriginToDestinationShouldFilterCorrectly() {
         List<Ticket> result = ticketService.filterOriginToDestination(mixedOriginDestinationTickets);
@@ -101,6 +375,30 @@ class TicketServiceImplTest {
         assertEquals("TLV", result.get(0).getDestination());
     }
 
+    @Test
+    void calculateMedianaShouldSelectMiddleValues() {
+        List<BigDecimal> odd = List.of(new BigDecimal("300"), new BigDecimal("100"), new BigDecimal("200.50"));
+        List<BigDecimal> even = List.of(new BigDecimal("400"), new BigDecimal("100"),
+                new BigDecimal("200.01"), new BigDecimal("300"));
+        List<BigDecimal> fractional = List.of(new BigDecimal("1.005"), new BigDecimal("2"));
+        List<BigDecimal> huge = List.of(new BigDecimal("100000000000000000000"), new BigDecimal("100"),
+                new BigDecimal("300"));
+
+        assertEquals(new BigDecimal("200.50"), ticketService.calculateMediana(odd));
+        assertEquals(new BigDecimal("250.01"), ticketService.calculateMediana(even));
+        assertEquals(new BigDecimal("1.50"), ticketService.calculateMediana(fractional));
+        assertEquals(new BigDecimal("300"), ticketService.calculateMediana(huge));
+    }
+
+    @Test
+    void calculateMedianaShouldKeepScaleOfOddMiddleElement() {
+        List<BigDecimal> odd = List.of(new BigDecimal("300"), new BigDecimal("100"), new BigDecimal("50"));
+        List<BigDecimal> ties = List.of(new BigDecimal("100.00"), new BigDecimal("100"), new BigDecimal("100.0"));
+
+        assertEquals(new BigDecimal("100"), ticketService.calculateMediana(odd));
+        assertEquals(new BigDecimal("100"), ticketService.calculateMediana(ties));
+    }
+
     @Test
     void calculateTicketDurationShouldCalculateCorrectDuration() {
         Duration result = ticketService.calculateTicketDuration(testTicketForDuration);
@@ -121,4 +419,23 @@ class TicketServiceImplTest {
         ticket.setArrivalTime(arrTime);
         return ticket;
     }
+
+    private Path createRouteTicketsFile() throws IOException {
+        Path testFile = tempDir.resolve("route_tickets.json");
+        Files.writeString(testFile, """
+        {
+          "tickets": [
+            {"origin": "VVO", "destination": "TLV", "departure_date": "12.05.18", "departure_time": "10:00",
+             "arrival_date": "12.05.18", "arrival_time": "18:00", "carrier": "SU", "price": 10000},
+            {"origin": "VVO", "destination": "TLV", "departure_date": "12.05.18", "departure_time": "11:00",
+             "arrival_date": "12.05.18", "arrival_time": "17:00", "carrier": "SU", "price": 15000},
+            {"origin": "VVO", "destination": "TLV", "departure_date": "12.05.18", "departure_time": "09:00",
+             "arrival_date": "12.05.18", "arrival_time": "21:00", "carrier": "TK", "price": 35000},
+            {"origin": "LED", "destination": "TLV", "departure_date": "12.05.18", "departure_time": "08:00",
+             "arrival_date": "12.05.18", "arrival_time": "09:00", "carrier": "SU", "price": 99000}
+          ]
+        }
+        """);
+        return testFile;
+    }
 }
\ No newline at end of file